@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.model.Film;
+
+@Configuration
+public class JacksonConfig {
+
+    public static final String FILM_FIELDS_FILTER = "filmFields";
+
+    /**
+     * Фильтр полей фильма подключается через mix-in, чтобы модель не зависела от Jackson.
+     * По умолчанию фильтр пропускает все поля; контроллер подменяет его для параметра fields.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer filmFieldsFilterCustomizer() {
+        return builder -> builder
+                .mixIn(Film.class, FilmFieldsMixin.class)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    @JsonFilter(FILM_FIELDS_FILTER)
+    abstract static class FilmFieldsMixin {
+
+        @JsonIgnore
+        abstract Long getVersion();
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class WebConfig {
+
+    /**
+     * Справочники жанров и рейтингов меняются только при деплое, поэтому для них достаточно ETag
+     * по хэшу тела: клиент с актуальной копией получает 304 без передачи данных.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> referenceDataEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/genres", "/genres/*", "/mpa", "/mpa/*");
+        registration.setName("referenceDataEtagFilter");
+        return registration;
+    }
+}
@@ -6,7 +6,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.dto.DirectorRank;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.service.DirectorLeaderboard;
 import ru.yandex.practicum.filmorate.service.DirectorService;
 
 import java.util.List;
@@ -18,6 +21,7 @@ import java.util.List;
 public class DirectorController {
 
     private final DirectorService directorService;
+    private static final int MAX_TOP_SIZE = 1000;
 
     @PostMapping
     public ResponseEntity<Director> create(@Valid @RequestBody Director director) {
@@ -38,6 +42,22 @@ public class DirectorController {
         return directorService.getAll();
     }
 
+    @GetMapping("/top")
+    public List<DirectorRank> getTop(@RequestParam(defaultValue = "likes") String sortBy,
+                                     @RequestParam(defaultValue = "10") int count) {
+        log.info("GET /directors/top?sortBy={}&count={}", sortBy, count);
+        DirectorLeaderboard.SortBy order = switch (sortBy) {
+            case "likes" -> DirectorLeaderboard.SortBy.LIKES;
+            case "films" -> DirectorLeaderboard.SortBy.FILMS;
+            default -> throw new ValidationException("Параметр sortBy должен содержать одно из значений: likes, films");
+        };
+        if (count <= 0 || count > MAX_TOP_SIZE) {
+            throw new ValidationException(String.format(
+                    "Количество режиссеров должно быть в диапазоне от 1 до %d", MAX_TOP_SIZE));
+        }
+        return directorService.getTopDirectors(order, count);
+    }
+
     @GetMapping("/{id}")
     public Director getById(@PathVariable Long id) {
         log.info("GET /directors/{}", id);
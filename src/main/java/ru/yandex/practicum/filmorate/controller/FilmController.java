@@ -1,17 +1,43 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.config.JacksonConfig;
+import ru.yandex.practicum.filmorate.dto.FacetedFilms;
+import ru.yandex.practicum.filmorate.dto.FilmBatchResult;
+import ru.yandex.practicum.filmorate.dto.FilmCacheStats;
+import ru.yandex.practicum.filmorate.dto.FilmChangesHead;
+import ru.yandex.practicum.filmorate.dto.FilmChangesResponse;
+import ru.yandex.practicum.filmorate.dto.FilmPage;
+import ru.yandex.practicum.filmorate.dto.FilmsByIdsResponse;
+import ru.yandex.practicum.filmorate.dto.LikeBurst;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeBurstTracker;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -23,12 +49,15 @@ import java.util.stream.Collectors;
 public class FilmController {
 
     private final FilmService filmService;
-    private static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    private final ObjectMapper objectMapper;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_IDS_PER_REQUEST = 500;
 
     @PostMapping
     public Film create(@Valid @RequestBody Film film) {
         log.info("POST /films -> {}", film);
-        if (film.getReleaseDate().isBefore(MIN_RELEASE_DATE)) {
+        if (film.getReleaseDate().isBefore(Film.MIN_RELEASE_DATE)) {
             throw new ValidationException("Дата релиза не может быть раньше 28 декабря 1895 года");
         }
 
@@ -38,10 +67,20 @@ public class FilmController {
         return filmService.create(film);
     }
 
+    @PostMapping("/batch")
+    public List<FilmBatchResult> createAll(@RequestBody List<Film> films) {
+        log.info("POST /films/batch -> {} films", films.size());
+        if (films.isEmpty() || films.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException(String.format(
+                    "Количество фильмов в пакете должно быть в диапазоне от 1 до %d", MAX_BATCH_SIZE));
+        }
+        return filmService.createAll(films);
+    }
+
     @PutMapping
     public Film update(@Valid @RequestBody Film film) {
         log.info("PUT /films -> {}", film);
-        if (film.getReleaseDate().isBefore(MIN_RELEASE_DATE)) {
+        if (film.getReleaseDate().isBefore(Film.MIN_RELEASE_DATE)) {
             throw new ValidationException("Дата релиза не может быть раньше 28 декабря 1895 года");
         }
 
@@ -51,16 +90,114 @@ public class FilmController {
         return filmService.update(film);
     }
 
-    @GetMapping
-    public List<Film> getAll() {
-        log.info("GET /films");
-        return filmService.getAll();
+    // Вся таблица одним списком только по явному запросу, без all=true отдается первая страница
+    @GetMapping(params = {"all=true", "!limit", "!after", "!ids"})
+    public MappingJacksonValue getAll(@RequestParam(required = false) String fields) {
+        log.info("GET /films?all=true&fields={}", fields);
+        Set<FilmField> filmFields = parseFields(fields);
+        return withFields(filmService.getAll(filmFields), filmFields);
+    }
+
+    @GetMapping(params = {"all=true"})
+    public void getAllWithPaging() {
+        throw new ValidationException("Параметр all=true нельзя передавать вместе с after или limit");
+    }
+
+    @GetMapping(params = {"!ids", "all!=true"})
+    public MappingJacksonValue getPage(@RequestParam(required = false) Long after,
+                                       @RequestParam(defaultValue = "100") int limit,
+                                       @RequestParam(required = false) String fields) {
+        log.info("GET /films?after={}&limit={}&fields={}", after, limit, fields);
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format(
+                    "Размер страницы должен быть в диапазоне от 1 до %d", MAX_PAGE_SIZE));
+        }
+        if (after != null && after < 0) {
+            throw new ValidationException("Курсор страницы не может быть отрицательным");
+        }
+        Set<FilmField> filmFields = parseFields(fields);
+        return withFields(filmService.getPage(after, limit, filmFields), filmFields);
+    }
+
+    @GetMapping(params = {"ids", "limit"})
+    public void getByIdsWithLimit() {
+        throw new ValidationException("Параметры ids и limit нельзя передавать вместе");
+    }
+
+    @GetMapping(params = {"ids", "!limit"})
+    public FilmsByIdsResponse getByIds(@RequestParam List<Long> ids) {
+        log.info("GET /films?ids={}", ids);
+        if (ids.isEmpty() || ids.size() > MAX_IDS_PER_REQUEST) {
+            throw new ValidationException(String.format(
+                    "Количество ID в запросе должно быть в диапазоне от 1 до %d", MAX_IDS_PER_REQUEST));
+        }
+        if (ids.contains(null)) {
+            throw new ValidationException("Список ID содержит пустое значение");
+        }
+        return filmService.getByIds(ids);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.info("GET /films/export");
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // Разделитель строк NDJSON пишем сами, стандартный пробел между корневыми значениями не нужен
+                generator.setRootValueSeparator(null);
+                filmService.exportAll(film -> {
+                    try {
+                        objectMapper.writeValue(generator, film);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/changes")
+    public FilmChangesResponse getChanges(@RequestParam(defaultValue = "0") long since,
+                                          @RequestParam(defaultValue = "500") int limit) {
+        log.info("GET /films/changes?since={}&limit={}", since, limit);
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format(
+                    "Размер страницы должен быть в диапазоне от 1 до %d", MAX_PAGE_SIZE));
+        }
+        if (since < 0) {
+            throw new ValidationException("Номер изменения не может быть отрицательным");
+        }
+        return filmService.getChangesSince(since, limit);
+    }
+
+    // После 400 от /changes клиент берет номер здесь, загружает каталог заново и продолжает с этого номера
+    @GetMapping("/changes/head")
+    public FilmChangesHead getChangesHead() {
+        log.info("GET /films/changes/head");
+        return filmService.getChangesHead();
+    }
+
+    @GetMapping("/cache/stats")
+    public FilmCacheStats getCacheStats() {
+        log.info("GET /films/cache/stats");
+        return filmService.getCacheStats();
     }
 
     @GetMapping("/{id}")
-    public Film getById(@PathVariable Long id) {
+    public ResponseEntity<Film> getById(@PathVariable Long id, WebRequest request) {
         log.info("GET /films/{}", id);
-        return filmService.getById(id);
+        // Версия берется из того же экземпляра, что уходит в теле, поэтому ETag всегда соответствует содержимому
+        Film film = filmService.getById(id);
+        String etag = "\"" + id + "-" + film.getVersion() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(film);
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -76,11 +213,21 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(
+    public MappingJacksonValue getPopularFilms(
             @RequestParam(defaultValue = "10") int count,
             @RequestParam(required = false) Integer genreId,
-            @RequestParam(required = false) Integer year) {
-        log.info("GET /films/popular?count={}&genreId={}&year={}", count, genreId, year);
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) List<Long> genreIds,
+            @RequestParam(defaultValue = "any") String genreMode,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) List<Long> mpaIds,
+            @RequestParam(required = false) List<Long> directorIds,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(required = false) String fields) {
+        log.info("GET /films/popular?count={}&genreId={}&year={}&genreIds={}&genreMode={}&yearFrom={}&yearTo={}" +
+                        "&mpaIds={}&directorIds={}&facets={}", count, genreId, year, genreIds, genreMode, yearFrom,
+                yearTo, mpaIds, directorIds, facets);
         if (count <= 0) {
             throw new ValidationException("Количество популярных фильмов должно быть больше 0");
         }
@@ -89,20 +236,80 @@ public class FilmController {
             throw new ValidationException("ID жанра должен быть положительным числом");
         }
 
-        if (year != null && (year < MIN_RELEASE_DATE.getYear() || year > LocalDate.now().getYear())) {
+        if (year != null && (year < Film.MIN_RELEASE_DATE.getYear() || year > LocalDate.now().getYear())) {
+            throw new ValidationException(String.format(
+                    "Год должен быть в диапазоне от %d до текущего года", Film.MIN_RELEASE_DATE.getYear()));
+        }
+
+        Set<FilmField> filmFields = parseFields(fields);
+        if (!facets && genreIds == null && yearFrom == null && yearTo == null && mpaIds == null
+                && directorIds == null) {
+            return withFields(filmService.getPopularFilms(count, genreId, year), filmFields);
+        }
+
+        // Составной фильтр и фасеты: одиночные genreId и year складываются с новыми параметрами
+        if (!"any".equals(genreMode) && !"all".equals(genreMode)) {
+            throw new ValidationException("Параметр genreMode должен содержать одно из значений: any, all");
+        }
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new ValidationException("Параметр yearFrom не может быть больше yearTo");
+        }
+        Set<Long> genres = genreIds == null ? new HashSet<>() : new HashSet<>(genreIds);
+        if (genreId != null) {
+            genres.add(genreId.longValue());
+        }
+        FilmFilter filter = new FilmFilter(genres, "all".equals(genreMode),
+                year != null ? year : yearFrom, year != null ? year : yearTo,
+                mpaIds == null ? Set.of() : Set.copyOf(mpaIds),
+                directorIds == null ? Set.of() : Set.copyOf(directorIds));
+        if (facets) {
+            return withFields(filmService.getPopularFilmsWithFacets(count, filter), filmFields);
+        }
+        return withFields(filmService.getPopularFilms(count, filter), filmFields);
+    }
+
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(defaultValue = "10") int count,
+            @RequestParam(required = false) Integer genreId) {
+        log.info("GET /films/trending?window={}&count={}&genreId={}", window, count, genreId);
+        TrendingWindow trendingWindow = TrendingWindow.fromParamName(window).orElseThrow(() ->
+                new ValidationException("Параметр window должен содержать одно из значений: 1h, 24h, 7d"));
+        if (count <= 0 || count > MAX_PAGE_SIZE) {
             throw new ValidationException(String.format(
-                    "Год должен быть в диапазоне от %d до текущего года", MIN_RELEASE_DATE.getYear()));
+                    "Количество фильмов должно быть в диапазоне от 1 до %d", MAX_PAGE_SIZE));
+        }
+        if (genreId != null && genreId <= 0) {
+            throw new ValidationException("ID жанра должен быть положительным числом");
         }
+        return filmService.getTrendingFilms(trendingWindow, count, genreId);
+    }
 
-        return filmService.getPopularFilms(count, genreId, year);
+    @GetMapping("/likes/bursts")
+    public List<LikeBurst> getLikeBursts(@RequestParam(defaultValue = "5") int buckets,
+                                         @RequestParam(defaultValue = "10") int limit) {
+        log.info("GET /films/likes/bursts?buckets={}&limit={}", buckets, limit);
+        if (buckets <= 0) {
+            throw new ValidationException("Количество интервалов должно быть больше 0");
+        }
+        if (limit <= 0 || limit > LikeBurstTracker.MAX_HEAVY_HITTERS) {
+            throw new ValidationException(String.format(
+                    "Количество фильмов в интервале должно быть в диапазоне от 1 до %d",
+                    LikeBurstTracker.MAX_HEAVY_HITTERS));
+        }
+        return filmService.getLikeBursts(buckets, limit);
     }
 
     @GetMapping("/search")
-    public List<Film> searchFilms(
+    public MappingJacksonValue searchFilms(
             @RequestParam String query,
-            @RequestParam(defaultValue = "title") String by
+            @RequestParam(defaultValue = "title") String by,
+            @RequestParam(defaultValue = "likes") String sort,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(required = false) String fields
     ) {
-        log.info("GET /films/search?query={}&by={}", query, by);
+        log.info("GET /films/search?query={}&by={}&sort={}&facets={}", query, by, sort, facets);
 
         if (query == null || query.trim().isEmpty()) {
             throw new ValidationException("Поисковый запрос не может быть пустым");
@@ -114,7 +321,7 @@ public class FilmController {
         query = query.trim();
 
         // Валидация параметра by
-        Set<String> validFields = Set.of("title", "director", "description");
+        Set<String> validFields = Set.of(FilmSearchIndex.TITLE, FilmSearchIndex.DIRECTOR, FilmSearchIndex.DESCRIPTION);
         Set<String> searchFields = Arrays.stream(by.split(","))
                 .map(String::trim)
                 .map(String::toLowerCase)
@@ -124,9 +331,17 @@ public class FilmController {
         if (searchFields.isEmpty()) {
             throw new ValidationException("Параметр 'by' должен содержать одно из значений: title, director, description");
         }
+        if (!"likes".equals(sort) && !"relevance".equals(sort)) {
+            throw new ValidationException("Параметр sort должен содержать одно из значений: likes, relevance");
+        }
+        boolean byRelevance = "relevance".equals(sort);
 
         log.info("Searching for films with query '{}' in fields: {}", query, searchFields);
-        return filmService.searchFilms(query, searchFields);
+        Set<FilmField> filmFields = parseFields(fields);
+        if (facets) {
+            return withFields(filmService.searchFilmsWithFacets(query, searchFields, byRelevance), filmFields);
+        }
+        return withFields(filmService.searchFilms(query, searchFields, byRelevance), filmFields);
     }
 
     @GetMapping("/director/{directorId}")
@@ -143,8 +358,14 @@ public class FilmController {
     }
 
     @DeleteMapping("/{filmId}")
-    public ResponseEntity<Void> deleteFilm(@PathVariable Long filmId) {
+    public ResponseEntity<Void> deleteFilm(@PathVariable Long filmId,
+                                           @RequestParam(defaultValue = "false") boolean async) {
+        log.info("DELETE /films/{}?async={}", filmId, async);
         try {
+            if (async) {
+                filmService.deleteAsync(filmId);
+                return ResponseEntity.accepted().build();
+            }
             filmService.delete(filmId);
             return ResponseEntity.noContent().build();
         } catch (NotFoundException e) {
@@ -152,4 +373,31 @@ public class FilmController {
         }
     }
 
+    // id возвращается всегда, без параметра fields отдаются все поля
+    private Set<FilmField> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return FilmField.ALL;
+        }
+        Set<FilmField> result = EnumSet.of(FilmField.ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            result.add(FilmField.fromJsonName(trimmed).orElseThrow(() ->
+                    new ValidationException("Неизвестное поле фильма в параметре fields: " + trimmed)));
+        }
+        return result;
+    }
+
+    // Фильтр полей действует и на фильмы, вложенные в ответ с фасетами
+    private MappingJacksonValue withFields(Object body, Set<FilmField> fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (!fields.containsAll(FilmField.ALL)) {
+            Set<String> names = fields.stream().map(FilmField::getJsonName).collect(Collectors.toSet());
+            value.setFilters(new SimpleFilterProvider().addFilter(JacksonConfig.FILM_FIELDS_FILTER,
+                    SimpleBeanPropertyFilter.filterOutAllExcept(names)));
+        }
+        return value;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.dto.PurgeStatus;
+import ru.yandex.practicum.filmorate.service.PurgeService;
+
+@Slf4j
+@RestController
+@RequestMapping("/purge")
+@RequiredArgsConstructor
+public class PurgeController {
+    private final PurgeService purgeService;
+
+    @GetMapping("/status")
+    public PurgeStatus getStatus() {
+        log.info("GET /purge/status");
+        return purgeService.getStatus();
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.dto.CatalogStats;
+import ru.yandex.practicum.filmorate.service.CatalogStatsRollup;
+
+@Slf4j
+@RestController
+@RequestMapping("/stats")
+@RequiredArgsConstructor
+public class StatsController {
+    private final CatalogStatsRollup catalogStatsRollup;
+
+    @GetMapping
+    public CatalogStats getStats() {
+        log.info("GET /stats");
+        return catalogStatsRollup.get();
+    }
+}
@@ -79,8 +79,14 @@ public class UserController {
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long userId) {
+    public ResponseEntity<Void> deleteUser(@PathVariable Long userId,
+                                           @RequestParam(defaultValue = "false") boolean async) {
+        log.info("DELETE /users/{}?async={}", userId, async);
         try {
+            if (async) {
+                userService.deleteAsync(userId);
+                return ResponseEntity.accepted().build();
+            }
             userService.delete(userId);
             return ResponseEntity.noContent().build();
         } catch (NotFoundException e) {
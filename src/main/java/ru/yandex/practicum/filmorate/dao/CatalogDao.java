@@ -0,0 +1,6 @@
+package ru.yandex.practicum.filmorate.dao;
+
+public interface CatalogDao {
+
+    String getEpoch();
+}
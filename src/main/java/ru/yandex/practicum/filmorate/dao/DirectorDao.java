@@ -2,8 +2,11 @@ package ru.yandex.practicum.filmorate.dao;
 
 import ru.yandex.practicum.filmorate.model.Director;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface DirectorDao {
     Director create(Director director);
@@ -17,4 +20,8 @@ public interface DirectorDao {
     void deleteById(Long id);
 
     boolean exists(Long id);
+
+    Map<Long, List<Director>> getDirectorsByFilmIds(Collection<Long> filmIds);
+
+    Set<Long> findExistingIds(Collection<Long> ids);
 }
\ No newline at end of file
@@ -3,7 +3,9 @@ package ru.yandex.practicum.filmorate.dao;
 import ru.yandex.practicum.filmorate.dto.EventDto;
 import ru.yandex.practicum.filmorate.model.Event;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface EventDao {
 
@@ -12,4 +14,7 @@ public interface EventDao {
     void saveEvent(EventDto eventData);
 
     List<Event> findByUserId(Long userId);
+
+    // События лайков фильмов начиная с since в порядке их времени, без загрузки всей таблицы в память
+    void forEachLikeEvent(Instant since, Consumer<EventDto> consumer);
 }
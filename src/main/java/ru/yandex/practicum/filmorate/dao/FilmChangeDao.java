@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import ru.yandex.practicum.filmorate.model.FilmChange;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface FilmChangeDao {
+
+    // Изменения с номером больше afterSeq по возрастанию номера
+    List<FilmChange> getChangesSince(long afterSeq, int limit);
+
+    // Наибольший номер среди изменений, записанных раньше settledBefore; номер очистки, если таких нет
+    long getHeadSeq(Instant settledBefore);
+
+    // Наибольший номер, удаленный из журнала по сроку хранения; 0, если журнал не очищался
+    long getPrunedSeq();
+
+    // Удаляет изменения, записанные раньше olderThan, и возвращает число удаленных строк
+    int prune(Instant olderThan);
+}
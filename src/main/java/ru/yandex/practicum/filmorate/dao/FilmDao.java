@@ -1,10 +1,14 @@
 package ru.yandex.practicum.filmorate.dao;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmDao {
 
@@ -12,17 +16,27 @@ public interface FilmDao {
 
     Film update(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     List<Film> getAll();
 
-    Optional<Film> getById(Long id);
+    List<Film> getAll(Set<FilmField> fields);
 
-    List<Film> getFilmsLikedByUserButNotAnother(Long similarUserId, Long targetUserId);
+    List<Film> getPage(long afterId, int limit, Set<FilmField> fields);
 
-    List<Film> searchFilms(String query, Set<String> by);
+    void streamAll(Consumer<Film> consumer);
+
+    Optional<Film> getById(Long id);
 
-    List<Film> getPopular(int count, Integer genreId, Integer year);
+    List<Film> getByIds(Collection<Long> ids);
+
+    List<Film> getFilmsLikedByUserButNotAnother(Long similarUserId, Long targetUserId);
 
     boolean existsById(Long id);
 
+    Map<Long, Long> getVersions();
+
     void delete(Long filmId);
+
+    void markDeleted(Long filmId);
 }
\ No newline at end of file
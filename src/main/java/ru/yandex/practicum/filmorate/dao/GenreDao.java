@@ -2,8 +2,11 @@ package ru.yandex.practicum.filmorate.dao;
 
 import ru.yandex.practicum.filmorate.model.Genre;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface GenreDao {
     List<Genre> getAllGenres();
@@ -11,4 +14,8 @@ public interface GenreDao {
     Optional<Genre> getGenreById(Long id);
 
     List<Genre> getGenresByFilmId(Long filmId);
+
+    Map<Long, List<Genre>> getGenresByFilmIds(Collection<Long> filmIds);
+
+    Set<Long> findExistingIds(Collection<Long> ids);
 }
\ No newline at end of file
@@ -1,11 +1,16 @@
 package ru.yandex.practicum.filmorate.dao;
 
+import ru.yandex.practicum.filmorate.dto.FilmLikeCount;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface LikeDao {
-    void addLike(Long filmId, Long userId);
+    // Новые счетчик и версия фильма; пусто, если лайк уже существовал
+    Optional<FilmLikeCount> addLike(Long filmId, Long userId);
 
-    void removeLike(Long filmId, Long userId);
+    // Новые счетчик и версия фильма; пусто, если лайка не было
+    Optional<FilmLikeCount> removeLike(Long filmId, Long userId);
 
     List<Long> getLikes(Long filmId);
 
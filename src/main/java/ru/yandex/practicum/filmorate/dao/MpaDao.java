@@ -2,11 +2,15 @@ package ru.yandex.practicum.filmorate.dao;
 
 import ru.yandex.practicum.filmorate.model.Mpa;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface MpaDao {
     List<Mpa> getAllMpa();
 
     Optional<Mpa> getMpaById(Long id);
+
+    Set<Long> findExistingIds(Collection<Long> ids);
 }
\ No newline at end of file
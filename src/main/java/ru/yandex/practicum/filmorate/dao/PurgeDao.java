@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import java.util.List;
+
+public interface PurgeDao {
+
+    List<Long> findDeletedFilmIds(int limit);
+
+    List<Long> findDeletedUserIds(int limit);
+
+    long countDeletedFilms();
+
+    long countDeletedUsers();
+
+    /**
+     * Удаляет не больше batchSize зависимых строк помеченного фильма.
+     * Возвращает число удаленных строк; 0 - зависимых строк не осталось и строка фильма удалена.
+     */
+    int purgeFilmBatch(Long filmId, int batchSize);
+
+    /**
+     * То же для помеченного пользователя.
+     */
+    int purgeUserBatch(Long userId, int batchSize);
+}
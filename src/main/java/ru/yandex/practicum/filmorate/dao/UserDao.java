@@ -15,4 +15,6 @@ public interface UserDao {
     Optional<User> getById(Long id);
 
     void delete(Long userId);
+
+    void markDeleted(Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.dao.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.dao.CatalogDao;
+
+@Repository
+@RequiredArgsConstructor
+public class CatalogDaoImpl implements CatalogDao {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public String getEpoch() {
+        return jdbcTemplate.queryForObject("SELECT epoch FROM catalog_meta WHERE id = 1", String.class);
+    }
+}
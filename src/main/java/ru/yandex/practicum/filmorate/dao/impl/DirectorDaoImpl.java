@@ -4,24 +4,25 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dao.DirectorDao;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class DirectorDaoImpl implements DirectorDao {
     private final JdbcTemplate jdbcTemplate;
+    private final ReferenceRegistry references;
 
     @Override
     public Director create(Director director) {
@@ -40,6 +41,7 @@ public class DirectorDaoImpl implements DirectorDao {
     }
 
     @Override
+    @Transactional
     public Director update(Director director) {
         final String sql = "UPDATE directors SET name=? WHERE id=?";
         int updated = jdbcTemplate.update(sql,
@@ -49,6 +51,8 @@ public class DirectorDaoImpl implements DirectorDao {
         if (updated == 0) {
             throw new NotFoundException("Director not found: id=" + director.getId());
         }
+        // Имя режиссера входит в представление его фильмов
+        FilmChanges.updatedAll(jdbcTemplate, filmIdsByDirector(director.getId()));
         log.info("Director updated id={}", director.getId());
         return director;
     }
@@ -81,9 +85,19 @@ public class DirectorDaoImpl implements DirectorDao {
     }
 
     @Override
+    @Transactional
     public void deleteById(Long id) {
+        // Связи с фильмами удалятся каскадно, поэтому фильмы режиссера читаем заранее
+        List<Long> filmIds = filmIdsByDirector(id);
         final String sql = "DELETE FROM directors WHERE id = ?";
         jdbcTemplate.update(sql, id);
+        references.forgetDirector(id);
+        FilmChanges.updatedAll(jdbcTemplate, filmIds);
+    }
+
+    private List<Long> filmIdsByDirector(Long directorId) {
+        return jdbcTemplate.queryForList("SELECT film_id FROM film_directors WHERE director_id = ?",
+                Long.class, directorId);
     }
 
     @Override
@@ -92,4 +106,33 @@ public class DirectorDaoImpl implements DirectorDao {
         Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
         return count != null && count > 0;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<Long, List<Director>> getDirectorsByFilmIds(Collection<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final String sql = "SELECT fd.film_id, d.id, d.name FROM film_directors fd " +
+                "JOIN directors d ON fd.director_id = d.id " +
+                "WHERE fd.film_id = ANY(?) ORDER BY fd.film_id, d.id";
+        Map<Long, List<Director>> directorsByFilm = new HashMap<>();
+        RowCallbackHandler handler = rs -> {
+            Director director = references.director(rs.getLong("id"), rs.getString("name"));
+            directorsByFilm.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(director);
+        };
+        jdbcTemplate.query(sql, SqlParams.idArray(filmIds), handler);
+        return directorsByFilm;
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String sql = "SELECT id FROM directors WHERE id = ANY(?)";
+        Set<Long> existing = new HashSet<>();
+        RowCallbackHandler handler = rs -> existing.add(rs.getLong("id"));
+        jdbcTemplate.query(sql, SqlParams.idArray(ids), handler);
+        return existing;
+    }
+}
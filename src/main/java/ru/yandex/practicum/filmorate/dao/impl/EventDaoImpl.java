@@ -5,19 +5,25 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.dao.EventDao;
 import ru.yandex.practicum.filmorate.dto.EventDto;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.service.mapper.EventRowMapper;
 import ru.yandex.practicum.filmorate.model.Event;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
+
+import static ru.yandex.practicum.filmorate.util.ActionsId.LIKE;
 
 @Slf4j
 @Repository
@@ -50,7 +56,29 @@ public class EventDaoImpl implements EventDao {
 
     @Override
     public List<Event> findByUserId(Long userId) {
-        String sql = "SELECT * FROM events WHERE user_id = ?";
-        return jdbc.query(sql, rowMapper, userId);
+        String sql = "SELECT e.* FROM events e JOIN users u ON e.user_id = u.id WHERE e.user_id = ? AND u.deleted_at IS NULL";
+        List<Event> events = jdbc.query(sql, rowMapper, userId);
+        // Пустая лента бывает и у пользователя без событий, и у удаленного: их различаем отдельным запросом
+        if (events.isEmpty()) {
+            Integer users = jdbc.queryForObject("SELECT COUNT(*) FROM users WHERE id = ? AND deleted_at IS NULL",
+                    Integer.class, userId);
+            if (users == null || users == 0) {
+                throw new NotFoundException("Пользователь с ID " + userId + " не найден");
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public void forEachLikeEvent(Instant since, Consumer<EventDto> consumer) {
+        String sql = "SELECT user_id, entity_id, event_type_id, operation_id, event_time FROM events " +
+                "WHERE event_type_id = ? AND event_time >= ? ORDER BY event_time, event_id";
+        RowCallbackHandler handler = rs -> consumer.accept(new EventDto(
+                rs.getLong("user_id"),
+                rs.getLong("entity_id"),
+                rs.getLong("event_type_id"),
+                rs.getLong("operation_id"),
+                rs.getTimestamp("event_time").toInstant()));
+        jdbc.query(sql, handler, LIKE.getId(), Timestamp.from(since));
     }
 }
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.dao.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dao.FilmChangeDao;
+import ru.yandex.practicum.filmorate.model.FilmChange;
+import ru.yandex.practicum.filmorate.model.FilmChangeType;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class FilmChangeDaoImpl implements FilmChangeDao {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<FilmChange> getChangesSince(long afterSeq, int limit) {
+        String sql = "SELECT seq, film_id, change_type, changed_at FROM film_changes WHERE seq > ? ORDER BY seq LIMIT ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new FilmChange(
+                        rs.getLong("seq"),
+                        rs.getLong("film_id"),
+                        FilmChangeType.valueOf(rs.getString("change_type")),
+                        rs.getTimestamp("changed_at").toInstant()),
+                afterSeq, limit);
+    }
+
+    @Override
+    public long getHeadSeq(Instant settledBefore) {
+        // Записи старше срока хранения удаляются целиком, поэтому номер очистки не больше найденного
+        Long head = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), (SELECT pruned_seq FROM film_changes_state " +
+                "WHERE id = 1)) FROM film_changes WHERE changed_at < ?", Long.class, Timestamp.from(settledBefore));
+        return head == null ? 0 : head;
+    }
+
+    @Override
+    public long getPrunedSeq() {
+        Long pruned = jdbcTemplate.queryForObject("SELECT pruned_seq FROM film_changes_state WHERE id = 1", Long.class);
+        return pruned == null ? 0 : pruned;
+    }
+
+    @Override
+    @Transactional
+    public int prune(Instant olderThan) {
+        // Удаляются только записи старше срока хранения, поэтому с текущими транзакциями очистка не пересекается
+        Long maxSeq = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM film_changes WHERE changed_at < ?",
+                Long.class, Timestamp.from(olderThan));
+        if (maxSeq == null) {
+            return 0;
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM film_changes WHERE seq <= ?", maxSeq);
+        jdbcTemplate.update("UPDATE film_changes_state SET pruned_seq = ? WHERE id = 1", maxSeq);
+        log.info("Film changes pruned through seq={}, rows={}", maxSeq, deleted);
+        return deleted;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.dao.impl;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dto.FilmLikeCount;
+import ru.yandex.practicum.filmorate.model.FilmChangeType;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Фиксация изменений фильма для всех путей записи, от которых зависит его представление:
+ * увеличение films.version (по ней строится ETag) и запись в журнал film_changes
+ * (по нему клиенты синхронизируются инкрементально). Вызывается в той же транзакции, что и сама запись.
+ * Номера берутся из identity-столбца без блокировок, порядок коммитов восстанавливает читатель журнала.
+ */
+final class FilmChanges {
+
+    private static final String LOG_ONE = "INSERT INTO film_changes (film_id, change_type) VALUES (?, ?)";
+
+    private FilmChanges() {
+    }
+
+    static void created(JdbcTemplate jdbcTemplate, Long filmId) {
+        log(jdbcTemplate, List.of(filmId), FilmChangeType.UPSERT);
+    }
+
+    static void createdAll(JdbcTemplate jdbcTemplate, Collection<Long> filmIds) {
+        log(jdbcTemplate, filmIds, FilmChangeType.UPSERT);
+    }
+
+    static void updated(JdbcTemplate jdbcTemplate, Long filmId) {
+        jdbcTemplate.update("UPDATE films SET version = version + 1 WHERE id = ?", filmId);
+        log(jdbcTemplate, List.of(filmId), FilmChangeType.UPSERT);
+    }
+
+    // Лайк меняет rate в представлении фильма, поэтому тоже меняет версию; счетчик и версия - одна запись строки
+    static FilmLikeCount liked(JdbcTemplate jdbcTemplate, Long filmId, int delta) {
+        FilmLikeCount likes = jdbcTemplate.queryForObject("SELECT like_count, version FROM FINAL TABLE " +
+                        "(UPDATE films SET like_count = like_count + ?, version = version + 1 WHERE id = ?)",
+                (rs, rowNum) -> new FilmLikeCount(rs.getInt("like_count"), rs.getLong("version")), delta, filmId);
+        log(jdbcTemplate, List.of(filmId), FilmChangeType.UPSERT);
+        return likes;
+    }
+
+    static void updatedAll(JdbcTemplate jdbcTemplate, Collection<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE films SET version = version + 1 WHERE id = ANY(?)", SqlParams.idArray(filmIds));
+        log(jdbcTemplate, filmIds, FilmChangeType.UPSERT);
+    }
+
+    static void deleted(JdbcTemplate jdbcTemplate, Long filmId) {
+        log(jdbcTemplate, List.of(filmId), FilmChangeType.DELETE);
+    }
+
+    private static void log(JdbcTemplate jdbcTemplate, Collection<Long> filmIds, FilmChangeType type) {
+        if (filmIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(LOG_ONE, filmIds.stream()
+                .map(id -> new Object[]{id, type.name()})
+                .toList());
+    }
+}
@@ -2,20 +2,28 @@ package ru.yandex.practicum.filmorate.dao.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dao.FilmDao;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Mpa;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,9 +31,15 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FilmDaoImpl implements FilmDao {
 
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final LinkTable GENRE_LINKS = new LinkTable("film_genres", "genre_id");
+    private static final LinkTable DIRECTOR_LINKS = new LinkTable("film_directors", "director_id");
+
     private final JdbcTemplate jdbcTemplate;
+    private final ReferenceRegistry references;
 
     @Override
+    @Transactional
     public Film create(Film film) {
         String sql = "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
         KeyHolder keyHolder = new GeneratedKeyHolder();
@@ -41,236 +55,367 @@ public class FilmDaoImpl implements FilmDao {
         }, keyHolder);
 
         film.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        film.setGenres(distinctGenres(film));
+        film.setDirectors(distinctDirectors(film));
 
-        saveFilmGenres(film);
-        saveFilmDirectors(film);
+        syncLinks(GENRE_LINKS, film.getId(), Collections.emptySet(), genreIds(film));
+        syncLinks(DIRECTOR_LINKS, film.getId(), Collections.emptySet(), directorIds(film));
+        FilmChanges.created(jdbcTemplate, film.getId());
         log.info("Film created id={}", film.getId());
         return film;
     }
 
     @Override
+    @Transactional
     public Film update(Film film) {
-        String sql = "UPDATE films SET name=?, description=?, release_date=?, duration=?, mpa_id=? WHERE id=?";
-        int updated = jdbcTemplate.update(sql,
-                film.getName(),
-                film.getDescription(),
-                Date.valueOf(film.getReleaseDate()),
-                film.getDuration(),
-                film.getMpa().getId(),
-                film.getId());
-
-        if (updated == 0) {
+        // Блокируем строку до конца транзакции, чтобы разница со связями считалась от актуального состояния
+        String currentSql = "SELECT name, description, release_date, duration, mpa_id FROM films " +
+                "WHERE id = ? AND deleted_at IS NULL FOR UPDATE";
+        List<Boolean> rowChanged = jdbcTemplate.query(currentSql, (rs, rowNum) ->
+                !Objects.equals(rs.getString("name"), film.getName())
+                        || !Objects.equals(rs.getString("description"), film.getDescription())
+                        || !rs.getDate("release_date").toLocalDate().equals(film.getReleaseDate())
+                        || rs.getInt("duration") != film.getDuration()
+                        || rs.getLong("mpa_id") != film.getMpa().getId(), film.getId());
+
+        if (rowChanged.isEmpty()) {
             throw new NotFoundException("Фильм с ID " + film.getId() + " не найден");
         }
 
-        saveFilmGenres(film);
-        saveFilmDirectors(film);
-        log.info("Film updated id={}", film.getId());
+        if (rowChanged.getFirst()) {
+            String sql = "UPDATE films SET name=?, description=?, release_date=?, duration=?, mpa_id=? WHERE id=?";
+            jdbcTemplate.update(sql,
+                    film.getName(),
+                    film.getDescription(),
+                    Date.valueOf(film.getReleaseDate()),
+                    film.getDuration(),
+                    film.getMpa().getId(),
+                    film.getId());
+        }
+
+        film.setGenres(distinctGenres(film));
+        film.setDirectors(distinctDirectors(film));
+        boolean linksChanged = syncLinks(GENRE_LINKS, film.getId(), storedLinks(GENRE_LINKS, film.getId()), genreIds(film))
+                | syncLinks(DIRECTOR_LINKS, film.getId(), storedLinks(DIRECTOR_LINKS, film.getId()), directorIds(film));
+
+        if (rowChanged.getFirst() || linksChanged) {
+            FilmChanges.updated(jdbcTemplate, film.getId());
+        }
+        log.info("Film updated id={}, row changed={}, links changed={}", film.getId(), rowChanged.getFirst(), linksChanged);
         return film;
     }
 
-    private void saveFilmGenres(Film film) {
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        String sql = "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
 
-        jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", film.getId());
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Film film = films.get(i);
+                        ps.setString(1, film.getName());
+                        ps.setString(2, film.getDescription());
+                        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+                        ps.setInt(4, film.getDuration());
+                        ps.setLong(5, film.getMpa().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Object[]> genreRows = new ArrayList<>();
+        List<Object[]> directorRows = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).get("id")).longValue());
+            film.setGenres(distinctGenres(film));
+            film.setDirectors(distinctDirectors(film));
+            film.getGenres().forEach(genre -> genreRows.add(new Object[]{film.getId(), genre.getId()}));
+            film.getDirectors().forEach(director -> directorRows.add(new Object[]{film.getId(), director.getId()}));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genreRows);
+        jdbcTemplate.batchUpdate("INSERT INTO film_directors (film_id, director_id) VALUES (?, ?)", directorRows);
+        FilmChanges.createdAll(jdbcTemplate, films.stream().map(Film::getId).toList());
 
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            Set<Long> seenIds = new HashSet<>();
-            List<Genre> uniqueGenres = film.getGenres().stream()
+        log.info("Films created in batch: {}", films.size());
+        return films;
+    }
+
+    private List<Genre> distinctGenres(Film film) {
+        if (film.getGenres() == null) {
+            return new ArrayList<>();
+        }
+        Set<Long> seenIds = new HashSet<>();
+        return film.getGenres().stream()
                 .filter(genre -> seenIds.add(genre.getId())) // add возвращает true если элемента еще не было
                 .collect(Collectors.toList());
+    }
 
-            film.setGenres(uniqueGenres);
-
-            final String genreSql = "MERGE INTO film_genres (film_id, genre_id) KEY (film_id, genre_id) VALUES (?, ?)";
-            for (Genre genre : uniqueGenres) {
-                jdbcTemplate.update(genreSql, film.getId(), genre.getId());
-            }
+    private List<Director> distinctDirectors(Film film) {
+        if (film.getDirectors() == null) {
+            return new ArrayList<>();
         }
+        Set<Long> seenIds = new HashSet<>();
+        return film.getDirectors().stream()
+                .filter(director -> seenIds.add(director.getId()))
+                .collect(Collectors.toList());
     }
 
-    private void saveFilmDirectors(Film film) {
-        jdbcTemplate.update("DELETE FROM film_directors WHERE film_id = ?", film.getId());
+    private Set<Long> genreIds(Film film) {
+        return film.getGenres().stream().map(Genre::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
 
-        if (film.getDirectors() != null) {
-            final String directorSql = "MERGE INTO film_directors (film_id, director_id) VALUES (?, ?)";
-            for (Director director : film.getDirectors()) {
-                jdbcTemplate.update(directorSql, film.getId(), director.getId());
-            }
+    private Set<Long> directorIds(Film film) {
+        return film.getDirectors().stream().map(Director::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private Set<Long> storedLinks(LinkTable links, Long filmId) {
+        String sql = "SELECT " + links.column() + " FROM " + links.table() + " WHERE film_id = ?";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, filmId));
+    }
+
+    /**
+     * Приводит связи фильма к нужному набору: удаляет и добавляет только отличающиеся строки,
+     * каждую группу одним пакетом. Возвращает true, если что-то изменилось.
+     */
+    private boolean syncLinks(LinkTable links, Long filmId, Set<Long> stored, Set<Long> incoming) {
+        List<Object[]> toDelete = stored.stream()
+                .filter(id -> !incoming.contains(id))
+                .map(id -> new Object[]{filmId, id})
+                .toList();
+        List<Object[]> toInsert = incoming.stream()
+                .filter(id -> !stored.contains(id))
+                .map(id -> new Object[]{filmId, id})
+                .toList();
+        if (!toDelete.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM " + links.table() + " WHERE film_id = ? AND " + links.column() + " = ?",
+                    toDelete);
         }
+        if (!toInsert.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + links.table() + " (film_id, " + links.column() + ") VALUES (?, ?)",
+                    toInsert);
+        }
+        return !toDelete.isEmpty() || !toInsert.isEmpty();
     }
 
     @Override
     public List<Film> getAll() {
-        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name AS mpa_name " +
-                "FROM films f LEFT JOIN mpa m ON f.mpa_id = m.id ORDER BY f.id";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> mapRowToFilm(rs));
+        return getAll(FilmField.ALL);
     }
 
     @Override
-    public Optional<Film> getById(Long id) {
-        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name AS mpa_name " +
-                "FROM films f LEFT JOIN mpa m ON f.mpa_id = m.id WHERE f.id=?";
-        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> mapRowToFilm(rs), id);
-
-        if (films.isEmpty()) return Optional.empty();
-        Film film = films.getFirst();
-        return Optional.of(film);
+    public List<Film> getAll(Set<FilmField> fields) {
+        String sql = "SELECT " + filmColumns(fields) + " FROM films f LEFT JOIN mpa m ON f.mpa_id = m.id " +
+                "WHERE f.deleted_at IS NULL ORDER BY f.id";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> mapRowToFilm(rs, fields));
     }
 
     @Override
-    public List<Film> searchFilms(String query, Set<String> by) {
-        if (query == null || query.isBlank() || by == null || by.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        log.info("Searching films with query: '{}' by fields: {}", query, by);
-
-        // Создаем базовый SQL запрос
-        StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("SELECT DISTINCT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name AS mpa_name ")
-                .append("FROM films f ")
-                .append("LEFT JOIN mpa m ON f.mpa_id = m.id ");
-
-        List<Object> params = new ArrayList<>();
-        List<String> conditions = new ArrayList<>();
-
-        String searchPattern = "%" + query.toLowerCase() + "%";
-
-        // Добавляем JOIN для директоров если нужно искать по режиссеру
-        if (by.contains("director")) {
-            sqlBuilder.append("LEFT JOIN film_directors fd ON f.id = fd.film_id ")
-                    .append("LEFT JOIN directors d ON fd.director_id = d.id ");
-        }
-
-        sqlBuilder.append("WHERE ");
-
-        // Добавляем условия поиска
-        if (by.contains("title")) {
-            conditions.add("LOWER(f.name) LIKE ?");
-            params.add(searchPattern);
-        }
-
-        if (by.contains("director")) {
-            conditions.add("LOWER(d.name) LIKE ?");
-            params.add(searchPattern);
-        }
-
-        // Добавляем условие для поиска по описанию
-        if (by.contains("description")) {
-            conditions.add("LOWER(f.description) LIKE ?");
-            params.add(searchPattern);
-        }
-
-        if (conditions.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        sqlBuilder.append(String.join(" OR ", conditions));
-
-        String sql = sqlBuilder.toString();
-        log.info("Executing search SQL: {} with params: {}", sql, params);
+    public List<Film> getPage(long afterId, int limit, Set<FilmField> fields) {
+        // Keyset: поиск по первичному ключу вместо OFFSET, цена страницы не зависит от её номера
+        String sql = "SELECT " + filmColumns(fields) + " FROM films f LEFT JOIN mpa m ON f.mpa_id = m.id " +
+                "WHERE f.id > ? AND f.deleted_at IS NULL ORDER BY f.id LIMIT ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> mapRowToFilm(rs, fields), afterId, limit);
+    }
 
-        try {
-            List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> mapRowToFilm(rs), params.toArray());
-            // Заполняем жанры и режиссеров для найденных фильмов
-            log.info("Found {} films", films.size());
-            return films;
-        } catch (Exception e) {
-            log.error("Error during search: {}", e.getMessage(), e);
-            // Если произошла ошибка, попробуем упрощенный поиск только по названию
-            if (by.contains("director") || by.contains("description")) {
-                log.info("Trying fallback search without director and description");
-                return searchFilmsFallback(query, by);
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        // Три курсора, упорядоченных по film_id, сливаются как при merge join:
+        // в памяти одновременно находится только текущий фильм
+        String filmsSql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.like_count, f.version, f.mpa_id, m.name AS mpa_name " +
+                "FROM films f LEFT JOIN mpa m ON f.mpa_id = m.id WHERE f.deleted_at IS NULL ORDER BY f.id";
+        String genresSql = "SELECT fg.film_id, g.id, g.name FROM film_genres fg " +
+                "JOIN genres g ON fg.genre_id = g.id ORDER BY fg.film_id, g.id";
+        String directorsSql = "SELECT fd.film_id, d.id, d.name FROM film_directors fd " +
+                "JOIN directors d ON fd.director_id = d.id ORDER BY fd.film_id, d.id";
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement films = connection.prepareStatement(filmsSql);
+                 PreparedStatement genres = connection.prepareStatement(genresSql);
+                 PreparedStatement directors = connection.prepareStatement(directorsSql)) {
+                films.setFetchSize(EXPORT_FETCH_SIZE);
+                genres.setFetchSize(EXPORT_FETCH_SIZE);
+                directors.setFetchSize(EXPORT_FETCH_SIZE);
+
+                try (ResultSet filmRs = films.executeQuery();
+                     ResultSet genreRs = genres.executeQuery();
+                     ResultSet directorRs = directors.executeQuery()) {
+                    boolean hasGenre = genreRs.next();
+                    boolean hasDirector = directorRs.next();
+                    while (filmRs.next()) {
+                        Film film = mapRowToFilm(filmRs);
+                        long filmId = film.getId();
+
+                        List<Genre> filmGenres = new ArrayList<>();
+                        // Строки с меньшим film_id принадлежат фильмам, удалённым во время выгрузки
+                        while (hasGenre && genreRs.getLong("film_id") <= filmId) {
+                            if (genreRs.getLong("film_id") == filmId) {
+                                filmGenres.add(references.genre(genreRs.getLong("id"), genreRs.getString("name")));
+                            }
+                            hasGenre = genreRs.next();
+                        }
+
+                        List<Director> filmDirectors = new ArrayList<>();
+                        while (hasDirector && directorRs.getLong("film_id") <= filmId) {
+                            if (directorRs.getLong("film_id") == filmId) {
+                                filmDirectors.add(references.director(directorRs.getLong("id"),
+                                        directorRs.getString("name")));
+                            }
+                            hasDirector = directorRs.next();
+                        }
+
+                        film.setGenres(filmGenres);
+                        film.setDirectors(filmDirectors);
+                        consumer.accept(film);
+                    }
+                }
             }
-            return Collections.emptyList();
-        }
+            return null;
+        });
     }
 
-    private List<Film> searchFilmsFallback(String query, Set<String> by) {
-        String sql = "SELECT DISTINCT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name AS mpa_name " +
-                "FROM films f LEFT JOIN mpa m ON f.mpa_id = m.id " +
-                "WHERE LOWER(f.name) LIKE ? ORDER BY f.id";
-
-        String searchPattern = "%" + query.toLowerCase() + "%";
-
-        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> mapRowToFilm(rs), searchPattern);
-
-        return films;
+    @Override
+    public Optional<Film> getById(Long id) {
+        // Фильм, рейтинг, жанры и режиссеры одним запросом: строки - произведение жанров на режиссеров
+        String sql = """
+                SELECT f.id, f.name, f.description, f.release_date, f.duration, f.like_count, f.version, f.mpa_id, m.name AS mpa_name,
+                       g.id AS genre_id, g.name AS genre_name, d.id AS director_id, d.name AS director_name
+                FROM films f
+                LEFT JOIN mpa m ON f.mpa_id = m.id
+                LEFT JOIN film_genres fg ON f.id = fg.film_id
+                LEFT JOIN genres g ON fg.genre_id = g.id
+                LEFT JOIN film_directors fd ON f.id = fd.film_id
+                LEFT JOIN directors d ON fd.director_id = d.id
+                WHERE f.id = ? AND f.deleted_at IS NULL
+                ORDER BY g.id, d.id
+                """;
+        ResultSetExtractor<Film> extractor = this::extractFilmAggregate;
+        return Optional.ofNullable(jdbcTemplate.query(sql, extractor, id));
     }
 
     @Override
-    public List<Film> getPopular(int count, Integer genreId, Integer year) {
-        StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name AS mpa_name ")
-                .append("FROM films f ")
-                .append("LEFT JOIN mpa m ON f.mpa_id = m.id ")
-                .append("LEFT JOIN likes l ON f.id = l.film_id ");
-
-        List<Object> params = new ArrayList<>();
-
-        // Добавляем условия фильтрации
-        if (genreId != null || year != null) {
-            sqlBuilder.append("WHERE ");
-            List<String> conditions = new ArrayList<>();
-
-            if (genreId != null) {
-                sqlBuilder.append("EXISTS (SELECT 1 FROM film_genres fg WHERE fg.film_id = f.id AND fg.genre_id = ?) ");
-                params.add(genreId);
-                conditions.add(""); // Добавляем пустую строку для правильного соединения условий
-            }
+    public List<Film> getByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.like_count, f.version, f.mpa_id, m.name AS mpa_name " +
+                "FROM films f LEFT JOIN mpa m ON f.mpa_id = m.id WHERE f.id = ANY(?) AND f.deleted_at IS NULL ORDER BY f.id";
+        return jdbcTemplate.query(sql, SqlParams.idArray(ids), (rs, rowNum) -> mapRowToFilm(rs));
+    }
 
-            if (year != null) {
-                if (!conditions.isEmpty()) {
-                    sqlBuilder.append("AND ");
-                }
-                sqlBuilder.append("YEAR(f.release_date) = ? ");
-                params.add(year);
+    private Film extractFilmAggregate(ResultSet rs) throws SQLException {
+        Film film = null;
+        Map<Long, Genre> genres = new LinkedHashMap<>();
+        Map<Long, Director> directors = new LinkedHashMap<>();
+        while (rs.next()) {
+            if (film == null) {
+                film = mapRowToFilm(rs);
+            }
+            long genreId = rs.getLong("genre_id");
+            if (!rs.wasNull() && !genres.containsKey(genreId)) {
+                genres.put(genreId, references.genre(genreId, rs.getString("genre_name")));
+            }
+            long directorId = rs.getLong("director_id");
+            if (!rs.wasNull() && !directors.containsKey(directorId)) {
+                directors.put(directorId, references.director(directorId, rs.getString("director_name")));
             }
         }
-
-        sqlBuilder.append("GROUP BY f.id, m.name ")
-                .append("ORDER BY COUNT(l.user_id) DESC ")
-                .append("LIMIT ?");
-        params.add(count);
-
-        String sql = sqlBuilder.toString();
-        log.info("Executing popular films SQL: {} with params: {}", sql, params);
-
-        return jdbcTemplate.query(sql, (rs, rowNum) -> mapRowToFilm(rs), params.toArray());
+        if (film != null) {
+            film.setGenres(new ArrayList<>(genres.values()));
+            film.setDirectors(new ArrayList<>(directors.values()));
+        }
+        return film;
     }
 
     @Override
     public boolean existsById(Long id) {
-        String sql = "SELECT COUNT(*) FROM films WHERE id = ?";
+        String sql = "SELECT COUNT(*) FROM films WHERE id = ? AND deleted_at IS NULL";
         Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
         return count > 0;
     }
 
-    private Film mapRowToFilm(java.sql.ResultSet rs) throws java.sql.SQLException {
-        Film film = new Film();
-        film.setId(rs.getLong("id"));
-        film.setName(rs.getString("name"));
-        film.setDescription(rs.getString("description"));
-        film.setReleaseDate(rs.getDate("release_date").toLocalDate());
-        film.setDuration(rs.getInt("duration"));
+    @Override
+    public Map<Long, Long> getVersions() {
+        Map<Long, Long> versions = new HashMap<>();
+        RowCallbackHandler handler = rs -> versions.put(rs.getLong("id"), rs.getLong("version"));
+        jdbcTemplate.query("SELECT id, version FROM films WHERE deleted_at IS NULL", handler);
+        return versions;
+    }
 
-        Mpa mpa = new Mpa();
-        mpa.setId(rs.getLong("mpa_id"));
-        mpa.setName(rs.getString("mpa_name"));
-        film.setMpa(mpa);
+    private Film mapRowToFilm(ResultSet rs) throws SQLException {
+        return mapRowToFilm(rs, FilmField.ALL);
+    }
 
+    // Читает только колонки, выбранные filmColumns для того же набора полей
+    private Film mapRowToFilm(ResultSet rs, Set<FilmField> fields) throws SQLException {
+        Film film = new Film();
+        film.setId(rs.getLong("id"));
+        film.setVersion(rs.getLong("version"));
+        if (fields.contains(FilmField.NAME)) {
+            film.setName(rs.getString("name"));
+        }
+        if (fields.contains(FilmField.DESCRIPTION)) {
+            film.setDescription(rs.getString("description"));
+        }
+        if (fields.contains(FilmField.RELEASE_DATE)) {
+            film.setReleaseDate(rs.getDate("release_date").toLocalDate());
+        }
+        if (fields.contains(FilmField.DURATION)) {
+            film.setDuration(rs.getInt("duration"));
+        }
+        if (fields.contains(FilmField.MPA)) {
+            film.setMpa(references.mpa(rs.getLong("mpa_id"), rs.getString("mpa_name")));
+        }
+        if (fields.contains(FilmField.RATE)) {
+            film.setRate(rs.getInt("like_count"));
+        }
         return film;
     }
 
+    private static String filmColumns(Set<FilmField> fields) {
+        StringJoiner columns = new StringJoiner(", ");
+        columns.add("f.id").add("f.version");
+        if (fields.contains(FilmField.NAME)) {
+            columns.add("f.name");
+        }
+        if (fields.contains(FilmField.DESCRIPTION)) {
+            columns.add("f.description");
+        }
+        if (fields.contains(FilmField.RELEASE_DATE)) {
+            columns.add("f.release_date");
+        }
+        if (fields.contains(FilmField.DURATION)) {
+            columns.add("f.duration");
+        }
+        if (fields.contains(FilmField.MPA)) {
+            columns.add("f.mpa_id").add("m.name AS mpa_name");
+        }
+        if (fields.contains(FilmField.RATE)) {
+            columns.add("f.like_count");
+        }
+        return columns.toString();
+    }
+
     @Override
     public List<Film> getFilmsLikedByUserButNotAnother(Long similarUserId, Long targetUserId) {
         final String sql = """
-                SELECT f.id, f.name, f.description, f.release_date, f.duration,
+                SELECT f.id, f.name, f.description, f.release_date, f.duration, f.like_count, f.version,
                        f.mpa_id, m.name AS mpa_name
                 FROM films f
                 JOIN likes l ON f.id = l.film_id
                 LEFT JOIN mpa m ON f.mpa_id = m.id
                 WHERE l.user_id = ?
+                  AND f.deleted_at IS NULL
                   AND f.id NOT IN (SELECT film_id FROM likes WHERE user_id = ?)
                 """;
 
@@ -279,12 +424,28 @@ public class FilmDaoImpl implements FilmDao {
     }
 
     @Override
+    @Transactional
     public void delete(Long filmId) {
         String sql = "DELETE FROM films WHERE id = ?";
         int deleted = jdbcTemplate.update(sql, filmId);
         if (deleted == 0) {
             throw new NotFoundException("Фильм с ID " + filmId + " не найден");
         }
+        FilmChanges.deleted(jdbcTemplate, filmId);
         log.info("Film deleted id={}", filmId);
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional
+    public void markDeleted(Long filmId) {
+        String sql = "UPDATE films SET deleted_at = CURRENT_TIMESTAMP WHERE id = ? AND deleted_at IS NULL";
+        if (jdbcTemplate.update(sql, filmId) == 0) {
+            throw new NotFoundException("Фильм с ID " + filmId + " не найден");
+        }
+        FilmChanges.deleted(jdbcTemplate, filmId);
+        log.info("Film marked deleted id={}", filmId);
+    }
+
+    private record LinkTable(String table, String column) {
+    }
+}
@@ -30,7 +30,8 @@ public class FriendDaoImpl implements FriendDao {
 
     @Override
     public List<Long> getFriends(Long userId) {
-        String sql = "SELECT friend_id FROM friends WHERE user_id = ?";
+        String sql = "SELECT f.friend_id FROM friends f JOIN users u ON f.friend_id = u.id " +
+                "WHERE f.user_id = ? AND u.deleted_at IS NULL";
         return jdbcTemplate.queryForList(sql, Long.class, userId);
     }
 
@@ -39,7 +40,8 @@ public class FriendDaoImpl implements FriendDao {
         String sql = "SELECT f1.friend_id " +
                 "FROM friends f1 " +
                 "JOIN friends f2 ON f1.friend_id = f2.friend_id " +
-                "WHERE f1.user_id = ? AND f2.user_id = ?";
+                "JOIN users u ON f1.friend_id = u.id " +
+                "WHERE f1.user_id = ? AND f2.user_id = ? AND u.deleted_at IS NULL";
         return jdbcTemplate.queryForList(sql, Long.class, userId, otherId);
     }
 
@@ -4,19 +4,19 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.dao.GenreDao;
 import ru.yandex.practicum.filmorate.model.Genre;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class GenreDaoImpl implements GenreDao {
     private final JdbcTemplate jdbcTemplate;
+    private final ReferenceRegistry references;
 
     @Override
     public List<Genre> getAllGenres() {
@@ -61,4 +61,33 @@ public class GenreDaoImpl implements GenreDao {
             return Collections.emptyList();
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<Long, List<Genre>> getGenresByFilmIds(Collection<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final String sql = "SELECT fg.film_id, g.id, g.name FROM film_genres fg " +
+                "JOIN genres g ON fg.genre_id = g.id " +
+                "WHERE fg.film_id = ANY(?) ORDER BY fg.film_id, g.id";
+        Map<Long, List<Genre>> genresByFilm = new HashMap<>();
+        RowCallbackHandler handler = rs -> {
+            Genre genre = references.genre(rs.getLong("id"), rs.getString("name"));
+            genresByFilm.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(genre);
+        };
+        jdbcTemplate.query(sql, SqlParams.idArray(filmIds), handler);
+        return genresByFilm;
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String sql = "SELECT id FROM genres WHERE id = ANY(?)";
+        Set<Long> existing = new HashSet<>();
+        RowCallbackHandler handler = rs -> existing.add(rs.getLong("id"));
+        jdbcTemplate.query(sql, SqlParams.idArray(ids), handler);
+        return existing;
+    }
+}
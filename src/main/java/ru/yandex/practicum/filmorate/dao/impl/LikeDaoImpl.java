@@ -2,11 +2,15 @@ package ru.yandex.practicum.filmorate.dao.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dao.LikeDao;
+import ru.yandex.practicum.filmorate.dto.FilmLikeCount;
 
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Repository
@@ -15,24 +19,33 @@ public class LikeDaoImpl implements LikeDao {
     private final JdbcTemplate jdbcTemplate;
 
     @Override
-    public void addLike(Long filmId, Long userId) {
-        final String del_sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(del_sql, filmId, userId);
-
+    @Transactional
+    public Optional<FilmLikeCount> addLike(Long filmId, Long userId) {
         final String sql = "INSERT INTO likes (film_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, filmId, userId);
+        try {
+            jdbcTemplate.update(sql, filmId, userId);
+        } catch (DuplicateKeyException e) {
+            // Повторный лайк, в том числе параллельный: вставку выполняет только одна транзакция
+            log.info("Like already exists: filmId={}, userId={}", filmId, userId);
+            return Optional.empty();
+        }
+        FilmLikeCount likes = FilmChanges.liked(jdbcTemplate, filmId, 1);
         log.info("Like added: filmId={}, userId={}", filmId, userId);
+        return Optional.of(likes);
     }
 
     @Override
-    public void removeLike(Long filmId, Long userId) {
+    @Transactional
+    public Optional<FilmLikeCount> removeLike(Long filmId, Long userId) {
         final String sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
         int deleted = jdbcTemplate.update(sql, filmId, userId);
         if (deleted > 0) {
+            FilmLikeCount likes = FilmChanges.liked(jdbcTemplate, filmId, -1);
             log.info("Like removed: filmId={}, userId={}", filmId, userId);
-        } else {
-            log.info("Like not found: filmId={}, userId={}", filmId, userId);
+            return Optional.of(likes);
         }
+        log.info("Like not found: filmId={}, userId={}", filmId, userId);
+        return Optional.empty();
     }
 
     @Override
@@ -53,7 +66,8 @@ public class LikeDaoImpl implements LikeDao {
                 SELECT l2.user_id
                 FROM likes l1
                 JOIN likes l2 ON l1.film_id = l2.film_id
-                WHERE l1.user_id = ? AND l2.user_id != ?
+                JOIN users u ON l2.user_id = u.id
+                WHERE l1.user_id = ? AND l2.user_id != ? AND u.deleted_at IS NULL
                 GROUP BY l2.user_id
                 ORDER BY COUNT(*) DESC
                 LIMIT 1
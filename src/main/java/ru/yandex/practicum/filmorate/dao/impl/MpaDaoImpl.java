@@ -1,14 +1,14 @@
 package ru.yandex.practicum.filmorate.dao.impl;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.dao.MpaDao;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Repository
 public class MpaDaoImpl implements MpaDao {
@@ -40,4 +40,16 @@ public class MpaDaoImpl implements MpaDao {
         mpa.setName(rs.getString("name"));
         return mpa;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String sql = "SELECT id FROM mpa WHERE id = ANY(?)";
+        Set<Long> existing = new HashSet<>();
+        RowCallbackHandler handler = rs -> existing.add(rs.getLong("id"));
+        jdbcTemplate.query(sql, SqlParams.idArray(ids), handler);
+        return existing;
+    }
+}
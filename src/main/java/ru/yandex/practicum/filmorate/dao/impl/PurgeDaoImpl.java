@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.dao.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dao.PurgeDao;
+
+import java.util.List;
+
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class PurgeDaoImpl implements PurgeDao {
+
+    // Порядок важен: отзывы удаляются после лайков, их оценки уходят каскадно вместе с отзывом
+    private static final List<DependentRows> FILM_DEPENDENTS = List.of(
+            new DependentRows("likes", "film_id", "user_id"),
+            new DependentRows("reviews", "film_id", "id"));
+
+    private static final DependentRows USER_LIKES = new DependentRows("likes", "user_id", "film_id");
+
+    private static final List<DependentRows> USER_DEPENDENTS = List.of(
+            new DependentRows("friends", "user_id", "friend_id"),
+            new DependentRows("friends", "friend_id", "user_id"),
+            new DependentRows("events", "user_id", "event_id"),
+            new DependentRows("review_likes", "user_id", "review_id"),
+            new DependentRows("review_dislikes", "user_id", "review_id"),
+            new DependentRows("reviews", "user_id", "id"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> findDeletedFilmIds(int limit) {
+        String sql = "SELECT id FROM films WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT ?";
+        return jdbcTemplate.queryForList(sql, Long.class, limit);
+    }
+
+    @Override
+    public List<Long> findDeletedUserIds(int limit) {
+        String sql = "SELECT id FROM users WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT ?";
+        return jdbcTemplate.queryForList(sql, Long.class, limit);
+    }
+
+    @Override
+    public long countDeletedFilms() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films WHERE deleted_at IS NOT NULL", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public long countDeletedUsers() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE deleted_at IS NOT NULL", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    @Transactional
+    public int purgeFilmBatch(Long filmId, int batchSize) {
+        for (DependentRows rows : FILM_DEPENDENTS) {
+            int deleted = deleteBatch(rows, filmId, batchSize).size();
+            if (deleted > 0) {
+                return deleted;
+            }
+        }
+        // Связи с жанрами и режиссерами ограничены справочниками и уходят каскадно вместе с фильмом
+        jdbcTemplate.update("DELETE FROM films WHERE id = ? AND deleted_at IS NOT NULL", filmId);
+        log.info("Film purged id={}", filmId);
+        return 0;
+    }
+
+    @Override
+    @Transactional
+    public int purgeUserBatch(Long userId, int batchSize) {
+        List<Long> likedFilms = deleteBatch(USER_LIKES, userId, batchSize);
+        if (!likedFilms.isEmpty()) {
+            // Снятые лайки меняют счетчики и представление фильмов
+            jdbcTemplate.update("UPDATE films SET like_count = like_count - 1 WHERE id = ANY(?)",
+                    SqlParams.idArray(likedFilms));
+            FilmChanges.updatedAll(jdbcTemplate, likedFilms);
+            return likedFilms.size();
+        }
+        for (DependentRows rows : USER_DEPENDENTS) {
+            int deleted = deleteBatch(rows, userId, batchSize).size();
+            if (deleted > 0) {
+                return deleted;
+            }
+        }
+        jdbcTemplate.update("DELETE FROM users WHERE id = ? AND deleted_at IS NOT NULL", userId);
+        log.info("User purged id={}", userId);
+        return 0;
+    }
+
+    private List<Long> deleteBatch(DependentRows rows, Long ownerId, int batchSize) {
+        String selectSql = "SELECT " + rows.keyColumn() + " FROM " + rows.table() +
+                " WHERE " + rows.ownerColumn() + " = ? LIMIT ?";
+        List<Long> keys = jdbcTemplate.queryForList(selectSql, Long.class, ownerId, batchSize);
+        if (!keys.isEmpty()) {
+            String deleteSql = "DELETE FROM " + rows.table() +
+                    " WHERE " + rows.ownerColumn() + " = ? AND " + rows.keyColumn() + " = ANY(?)";
+            jdbcTemplate.update(deleteSql, ps -> {
+                ps.setLong(1, ownerId);
+                ps.setArray(2, ps.getConnection().createArrayOf("BIGINT", keys.toArray()));
+            });
+        }
+        return keys;
+    }
+
+    private record DependentRows(String table, String ownerColumn, String keyColumn) {
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.dao.impl;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Общие экземпляры MPA, жанров и режиссеров для мапперов строк: в списке из тысяч фильмов
+ * каждый рейтинг или жанр представлен одним объектом, а не копией на строку.
+ * Экземпляр переиспользуется, только пока имя в базе совпадает с закэшированным,
+ * поэтому переименование не требует явной инвалидации. Возвращаемые объекты общие
+ * и не должны изменяться.
+ */
+@Component
+class ReferenceRegistry {
+
+    private final Map<Long, Mpa> mpas = new ConcurrentHashMap<>();
+    private final Map<Long, Genre> genres = new ConcurrentHashMap<>();
+    private final Map<Long, Director> directors = new ConcurrentHashMap<>();
+
+    Mpa mpa(long id, String name) {
+        return intern(mpas, id, name, Mpa::getName, () -> new Mpa(id, name));
+    }
+
+    Genre genre(long id, String name) {
+        return intern(genres, id, name, Genre::getName, () -> new Genre(id, name));
+    }
+
+    Director director(long id, String name) {
+        return intern(directors, id, name, Director::getName, () -> {
+            Director director = new Director();
+            director.setId(id);
+            director.setName(name);
+            return director;
+        });
+    }
+
+    void forgetDirector(long id) {
+        directors.remove(id);
+    }
+
+    private static <T> T intern(Map<Long, T> registry, long id, String name,
+                                Function<T, String> nameOf, Supplier<T> factory) {
+        T current = registry.get(id);
+        if (current != null && Objects.equals(nameOf.apply(current), name)) {
+            return current;
+        }
+        T created = factory.get();
+        registry.put(id, created);
+        return created;
+    }
+}
@@ -28,6 +28,9 @@ public class ReviewDaoImpl implements ReviewDao {
             SELECT r.*,
             (SELECT COUNT(*) FROM review_likes WHERE review_id = r.id) - (SELECT COUNT(*) FROM review_dislikes WHERE review_id = r.id) AS useful
             FROM reviews r
+            JOIN films f ON r.film_id = f.id
+            JOIN users u ON r.user_id = u.id
+            WHERE f.deleted_at IS NULL AND u.deleted_at IS NULL
             ORDER BY useful DESC
             LIMIT ?
         """;
@@ -41,7 +44,9 @@ public class ReviewDaoImpl implements ReviewDao {
             (SELECT COUNT(*) FROM review_likes WHERE review_id = r.id) -
              (SELECT COUNT(*) FROM review_dislikes WHERE review_id = r.id) AS useful
             FROM reviews r
-            WHERE film_id = ?
+            JOIN films f ON r.film_id = f.id
+            JOIN users u ON r.user_id = u.id
+            WHERE r.film_id = ? AND f.deleted_at IS NULL AND u.deleted_at IS NULL
             ORDER BY useful DESC
             LIMIT ?
         """;
@@ -55,7 +60,9 @@ public class ReviewDaoImpl implements ReviewDao {
             (SELECT COUNT(*) FROM review_likes WHERE review_id = r.id) -
              (SELECT COUNT(*) FROM review_dislikes WHERE review_id = r.id) AS useful
             FROM reviews r
-            WHERE id = ?
+            JOIN films f ON r.film_id = f.id
+            JOIN users u ON r.user_id = u.id
+            WHERE r.id = ? AND f.deleted_at IS NULL AND u.deleted_at IS NULL
             LIMIT 1
         """;
         return jdbcTemplate.queryForObject(sql, mapper, id);
@@ -113,7 +120,9 @@ public class ReviewDaoImpl implements ReviewDao {
 
     @Override
     public boolean exists(long id) {
-        String sql = "SELECT COUNT(*) FROM reviews WHERE id = ?";
+        // Отзывы удаленных, но еще не очищенных фильмов и пользователей не видны
+        String sql = "SELECT COUNT(*) FROM reviews r JOIN films f ON r.film_id = f.id JOIN users u ON r.user_id = u.id " +
+                "WHERE r.id = ? AND f.deleted_at IS NULL AND u.deleted_at IS NULL";
         Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
         return count != 0;
     }
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.dao.impl;
+
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.util.Collection;
+
+/**
+ * Общие параметры запросов для DAO.
+ * Список id передаётся одним массивом в {@code = ANY(?)}, поэтому размер списка
+ * не влияет ни на текст запроса, ни на количество обращений к базе.
+ */
+final class SqlParams {
+
+    private SqlParams() {
+    }
+
+    static PreparedStatementSetter idArray(Collection<Long> ids) {
+        return ps -> ps.setArray(1, ps.getConnection().createArrayOf("BIGINT", ids.toArray()));
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dao.UserDao;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
@@ -45,7 +46,7 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public User update(User user) {
-        final String sql = "UPDATE users SET email=?, login=?, name=?, birthday=? WHERE id=?";
+        final String sql = "UPDATE users SET email=?, login=?, name=?, birthday=? WHERE id=? AND deleted_at IS NULL";
         int updated = jdbcTemplate.update(sql,
                 user.getEmail(),
                 user.getLogin(),
@@ -62,7 +63,7 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public List<User> getAll() {
-        final String sql = "SELECT id, email, login, name, birthday FROM users ORDER BY id";
+        final String sql = "SELECT id, email, login, name, birthday FROM users WHERE deleted_at IS NULL ORDER BY id";
         return jdbcTemplate.query(sql, (rs, rn) -> {
             User u = new User();
             u.setId(rs.getLong("id"));
@@ -78,7 +79,7 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public Optional<User> getById(Long id) {
-        final String sql = "SELECT id, email, login, name, birthday FROM users WHERE id = ?";
+        final String sql = "SELECT id, email, login, name, birthday FROM users WHERE id = ? AND deleted_at IS NULL";
         try {
             User u = jdbcTemplate.queryForObject(sql, (rs, rn) -> {
                 User user = new User();
@@ -98,18 +99,34 @@ public class UserDaoImpl implements UserDao {
     }
 
     public Boolean exists(Long id) {
-        String sql = "SELECT COUNT(*) FROM users WHERE id = ?";
+        String sql = "SELECT COUNT(*) FROM users WHERE id = ? AND deleted_at IS NULL";
         Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
         return count != 0;
     }
 
     @Override
+    @Transactional
     public void delete(Long userId) {
+        // Лайки пользователя удалятся каскадно, поэтому затронутые фильмы и их счетчики меняем заранее
+        List<Long> likedFilms = jdbcTemplate.queryForList("SELECT film_id FROM likes WHERE user_id = ?",
+                Long.class, userId);
+        jdbcTemplate.update("UPDATE films SET like_count = like_count - 1 " +
+                "WHERE id IN (SELECT film_id FROM likes WHERE user_id = ?)", userId);
         String sql = "DELETE FROM users WHERE id = ?";
         int deleted = jdbcTemplate.update(sql, userId);
         if (deleted == 0) {
             throw new NotFoundException("Пользователь с ID " + userId + " не найден");
         }
+        FilmChanges.updatedAll(jdbcTemplate, likedFilms);
         log.info("User deleted id={}", userId);
     }
+
+    @Override
+    public void markDeleted(Long userId) {
+        String sql = "UPDATE users SET deleted_at = CURRENT_TIMESTAMP WHERE id = ? AND deleted_at IS NULL";
+        if (jdbcTemplate.update(sql, userId) == 0) {
+            throw new NotFoundException("Пользователь с ID " + userId + " не найден");
+        }
+        log.info("User marked deleted id={}", userId);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class CatalogStats {
+
+    private int filmCount;
+
+    private long likeCount;
+
+    // Средняя продолжительность по фильмам с указанной продолжительностью, в минутах
+    private double averageDuration;
+
+    private Map<Integer, Integer> filmsByYear;
+
+    // Жанр -> год релиза -> число фильмов
+    private Map<Long, Map<Integer, Integer>> filmsByGenreAndYear;
+
+    private Map<Long, Long> likesByMpa;
+}
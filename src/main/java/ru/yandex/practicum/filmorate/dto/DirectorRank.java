@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DirectorRank {
+
+    private Long id;
+
+    private String name;
+
+    // Сумма лайков всех фильмов режиссера
+    private long totalLikes;
+
+    private int filmCount;
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FacetedFilms {
+
+    private List<Film> films;
+
+    private FilmFacets facets;
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FilmBatchResult {
+
+    // Позиция фильма во входном массиве
+    private int index;
+
+    private Long id;
+
+    private boolean created;
+
+    private String error;
+
+    public static FilmBatchResult created(int index, Long id) {
+        return new FilmBatchResult(index, id, true, null);
+    }
+
+    public static FilmBatchResult rejected(int index, String error) {
+        return new FilmBatchResult(index, null, false, error);
+    }
+}
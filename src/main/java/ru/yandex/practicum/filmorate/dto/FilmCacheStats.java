@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FilmCacheStats {
+
+    private long hitCount;
+
+    private long missCount;
+
+    private double hitRate;
+
+    private long evictionCount;
+
+    private long evictionWeight;
+
+    private long estimatedSize;
+
+    // Суммарный оценочный размер закэшированных фильмов в байтах и его предел
+    private long weightedSize;
+
+    private long maxWeight;
+}
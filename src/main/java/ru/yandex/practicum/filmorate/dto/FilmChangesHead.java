@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Точка, с которой клиент начинает читать журнал после полной загрузки каталога: номер берется
+ * до загрузки и передается в since первого запроса GET /films/changes. Изменения после него,
+ * уже попавшие в загруженный каталог, придут повторно и применяются поверх.
+ */
+@Data
+@AllArgsConstructor
+public class FilmChangesHead {
+
+    private long seq;
+}
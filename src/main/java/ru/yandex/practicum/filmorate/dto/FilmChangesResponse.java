@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FilmChangesResponse {
+
+    // Актуальное состояние фильмов, изменённых после since
+    private List<Film> films;
+
+    // Фильмы, удалённые после since
+    private List<Long> deletedIds;
+
+    // Номер последнего учтённого изменения, передаётся в since следующего запроса
+    private long nextSeq;
+
+    private boolean hasMore;
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class FilmFacets {
+
+    // Число фильмов во всем наборе результатов, а не только на выданной странице
+    private int total;
+
+    private Map<Long, Integer> genres;
+
+    private Map<Long, Integer> mpa;
+
+    // Ключ - первый год десятилетия: 1990, 2000, ...
+    private Map<Integer, Integer> decades;
+}
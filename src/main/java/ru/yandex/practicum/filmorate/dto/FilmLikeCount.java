@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Число лайков и версия фильма сразу после изменения лайка
+@Data
+@AllArgsConstructor
+public class FilmLikeCount {
+
+    private int likeCount;
+
+    private long version;
+}
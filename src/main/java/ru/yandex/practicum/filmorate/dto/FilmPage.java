@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FilmPage {
+
+    private List<Film> films;
+
+    // id последнего фильма страницы, передаётся в after; null - страниц больше нет
+    private Long nextCursor;
+}
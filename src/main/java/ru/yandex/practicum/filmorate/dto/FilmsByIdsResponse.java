@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FilmsByIdsResponse {
+
+    // Найденные фильмы в порядке запроса
+    private List<Film> films;
+
+    private List<Long> missingIds;
+}
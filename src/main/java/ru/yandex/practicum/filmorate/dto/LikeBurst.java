@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class LikeBurst {
+
+    private Instant bucketStart;
+
+    private long totalLikes;
+
+    // Оценка превышает точное число лайков не более чем на эту величину с вероятностью ~98%
+    private long maxOverestimate;
+
+    private List<HeavyHitter> films;
+
+    @Data
+    @AllArgsConstructor
+    public static class HeavyHitter {
+
+        private Long filmId;
+
+        private long estimatedLikes;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class PurgeStatus {
+
+    // Помечены удаленными и ждут очистки
+    private long pendingFilms;
+
+    private long pendingUsers;
+
+    // Счетчики с момента запуска приложения
+    private long purgedFilms;
+
+    private long purgedUsers;
+
+    private long purgedRows;
+
+    private Instant lastRunAt;
+}
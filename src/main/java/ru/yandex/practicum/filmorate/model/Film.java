@@ -17,6 +17,8 @@ import java.util.List;
 @AllArgsConstructor
 public class Film {
 
+    public static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+
     private Long id;
 
     @NotBlank(message = "Название не может быть пустым")
@@ -39,4 +41,7 @@ public class Film {
     private List<Director> directors = new ArrayList<>();
 
     private Integer rate = 0;
+
+    // Версия строки в базе на момент чтения; в JSON не выводится и служит для ETag
+    private Long version;
 }
\ No newline at end of file
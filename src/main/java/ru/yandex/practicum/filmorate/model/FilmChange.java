@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class FilmChange {
+    private long seq;
+    private Long filmId;
+    private FilmChangeType type;
+    private Instant changedAt;
+}
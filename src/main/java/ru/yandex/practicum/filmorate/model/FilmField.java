@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Поля фильма, которые можно запросить через параметр fields.
+ */
+@Getter
+public enum FilmField {
+    ID("id"),
+    NAME("name"),
+    DESCRIPTION("description"),
+    RELEASE_DATE("releaseDate"),
+    DURATION("duration"),
+    MPA("mpa"),
+    GENRES("genres"),
+    DIRECTORS("directors"),
+    RATE("rate");
+
+    public static final Set<FilmField> ALL = Collections.unmodifiableSet(EnumSet.allOf(FilmField.class));
+
+    private final String jsonName;
+
+    FilmField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public static Optional<FilmField> fromJsonName(String jsonName) {
+        for (FilmField field : values()) {
+            if (field.jsonName.equals(jsonName)) {
+                return Optional.of(field);
+            }
+        }
+        return Optional.empty();
+    }
+}
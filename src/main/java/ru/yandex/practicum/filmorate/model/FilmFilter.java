@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.Set;
+
+/**
+ * Составной фильтр списка популярных фильмов. Пустой набор или null - фильтр не задан.
+ *
+ * @param allGenres true - фильм должен иметь все жанры из genreIds, false - хотя бы один
+ */
+public record FilmFilter(Set<Long> genreIds, boolean allGenres, Integer yearFrom, Integer yearTo,
+                         Set<Long> mpaIds, Set<Long> directorIds) {
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Окно рейтинга «в тренде»: вес лайка уменьшается вдвое за каждый halfLife.
+ */
+@Getter
+public enum TrendingWindow {
+    HOUR("1h", Duration.ofHours(1)),
+    DAY("24h", Duration.ofDays(1)),
+    WEEK("7d", Duration.ofDays(7));
+
+    private final String paramName;
+    private final Duration halfLife;
+
+    TrendingWindow(String paramName, Duration halfLife) {
+        this.paramName = paramName;
+        this.halfLife = halfLife;
+    }
+
+    public static Optional<TrendingWindow> fromParamName(String paramName) {
+        for (TrendingWindow window : values()) {
+            if (window.paramName.equals(paramName)) {
+                return Optional.of(window);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+/**
+ * Индекс каталога в памяти, который строится на старте общим проходом CatalogIndexLoader по всем фильмам.
+ * Методы построения вызываются из одного потока до запуска веб-сервера.
+ */
+interface CatalogIndex {
+
+    default void startLoad() {
+    }
+
+    void load(Film film);
+
+    default void finishLoad() {
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.FilmDao;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.snapshot.CatalogSnapshotService;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Строит все индексы каталога на старте за один проход по фильмам.
+ * <p>
+ * Если снимок каталога подошел к базе, индексы получают фильмы из него, а из базы пакетами
+ * дочитываются только фильмы, измененные или созданные после снимка. Без снимка каталог
+ * читается из базы одним потоком.
+ */
+@Slf4j
+@Component
+public class CatalogIndexLoader implements SmartInitializingSingleton {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final FilmDao filmDao;
+    private final FilmService filmService;
+    private final ObjectProvider<CatalogSnapshotService> snapshotService;
+    private final List<CatalogIndex> indexes;
+
+    public CatalogIndexLoader(FilmDao filmDao, FilmService filmService,
+                              ObjectProvider<CatalogSnapshotService> snapshotService, List<CatalogIndex> indexes) {
+        this.filmDao = filmDao;
+        this.filmService = filmService;
+        this.snapshotService = snapshotService;
+        this.indexes = indexes;
+    }
+
+    // Выполняется до запуска веб-сервера: запросы не застают индексы в процессе построения
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        int[] fromDatabase = {0};
+        Consumer<Film> load = film -> indexes.forEach(index -> index.load(film));
+        indexes.forEach(CatalogIndex::startLoad);
+
+        CatalogSnapshotService snapshot = snapshotService.getIfAvailable();
+        Set<Long> fromSnapshot = snapshot == null ? Set.of() : snapshot.load(load);
+        if (fromSnapshot.isEmpty()) {
+            filmDao.streamAll(film -> {
+                load.accept(film);
+                fromDatabase[0]++;
+            });
+        } else {
+            List<Long> missing = filmDao.getVersions().keySet().stream()
+                    .filter(filmId -> !fromSnapshot.contains(filmId))
+                    .toList();
+            for (int i = 0; i < missing.size(); i += BATCH_SIZE) {
+                List<Long> batch = missing.subList(i, Math.min(i + BATCH_SIZE, missing.size()));
+                filmService.loadGenresAndDirectors(filmDao.getByIds(batch)).forEach(load);
+            }
+            fromDatabase[0] = missing.size();
+        }
+
+        indexes.forEach(CatalogIndex::finishLoad);
+        log.info("Индексы каталога построены: {} фильмов из снимка, {} из базы, за {} мс",
+                fromSnapshot.size(), fromDatabase[0], (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.CatalogStats;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.*;
+
+/**
+ * Агрегаты каталога для дашборда: фильмы по году и по паре жанр-год, лайки по рейтингу MPA,
+ * средняя продолжительность. Строятся один раз при старте и дальше обновляются на каждой записи,
+ * поэтому чтение статистики не обращается к таблицам films и likes.
+ * <p>
+ * Фильмы приходят из FilmService, лайки - из PopularityIndex, который видит все изменения
+ * лайков, включая удаление пользователей. Для каждого фильма хранится то, что уже учтено
+ * в агрегатах, чтобы при изменении вычесть старый вклад и добавить новый.
+ */
+@Slf4j
+@Component
+public class CatalogStatsRollup implements CatalogIndex, PopularityIndex.Listener {
+
+    private final PopularityIndex popularityIndex;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<Integer, Integer> filmsByYear = new TreeMap<>();
+    private final Map<Long, Map<Integer, Integer>> filmsByGenreAndYear = new TreeMap<>();
+    private final Map<Long, Long> likesByMpa = new TreeMap<>();
+    private long likeCount;
+    private long durationSum;
+    private int durationCount;
+
+    public CatalogStatsRollup(PopularityIndex popularityIndex) {
+        this.popularityIndex = popularityIndex;
+        popularityIndex.addListener(this);
+    }
+
+    @Override
+    public synchronized void load(Film film) {
+        apply(film.getId(), Entry.of(film, film.getRate()));
+    }
+
+    @Override
+    public synchronized void finishLoad() {
+        log.info("Статистика каталога построена: {} фильмов, {} лайков", entries.size(), likeCount);
+    }
+
+    public synchronized CatalogStats get() {
+        Map<Long, Map<Integer, Integer>> byGenreAndYear = new TreeMap<>();
+        filmsByGenreAndYear.forEach((genreId, byYear) -> byGenreAndYear.put(genreId, new TreeMap<>(byYear)));
+        return new CatalogStats(entries.size(), likeCount,
+                durationCount == 0 ? 0 : (double) durationSum / durationCount,
+                new TreeMap<>(filmsByYear), byGenreAndYear, new TreeMap<>(likesByMpa));
+    }
+
+    // Новый или измененный фильм; лайки меняются только через likesChanged.
+    // Лайк, пришедший между PopularityIndex.put и этим вызовом, мы пропустили, поэтому новый фильм берет лайки из индекса
+    public synchronized void put(Film film) {
+        Entry current = entries.get(film.getId());
+        apply(film.getId(), Entry.of(film, current == null ? popularityIndex.likes(film.getId()) : current.likes()));
+    }
+
+    public synchronized void remove(Long filmId) {
+        apply(filmId, null);
+    }
+
+    @Override
+    public synchronized void likesChanged(long filmId, int likes) {
+        Entry current = entries.get(filmId);
+        if (current != null) {
+            apply(filmId, current.withLikes(likes));
+        }
+    }
+
+    @Override
+    public void filmChanged(long filmId) {
+        // Атрибуты фильма приходят через put и remove вместе с самим фильмом
+    }
+
+    private void apply(Long filmId, Entry updated) {
+        Entry previous = updated == null ? entries.remove(filmId) : entries.put(filmId, updated);
+        if (previous != null) {
+            add(previous, -1);
+        }
+        if (updated != null) {
+            add(updated, 1);
+        }
+    }
+
+    private void add(Entry entry, int sign) {
+        merge(filmsByYear, entry.year(), sign);
+        for (Long genreId : entry.genreIds()) {
+            Map<Integer, Integer> byYear = filmsByGenreAndYear.computeIfAbsent(genreId, id -> new TreeMap<>());
+            merge(byYear, entry.year(), sign);
+            if (byYear.isEmpty()) {
+                filmsByGenreAndYear.remove(genreId);
+            }
+        }
+        if (entry.mpaId() != null && entry.likes() != 0) {
+            likesByMpa.merge(entry.mpaId(), (long) sign * entry.likes(),
+                    (likes, change) -> likes + change == 0 ? null : likes + change);
+        }
+        likeCount += (long) sign * entry.likes();
+        if (entry.duration() != null) {
+            durationSum += (long) sign * entry.duration();
+            durationCount += sign;
+        }
+    }
+
+    private static void merge(Map<Integer, Integer> counts, int key, int delta) {
+        counts.merge(key, delta, (count, change) -> count + change == 0 ? null : count + change);
+    }
+
+    private record Entry(Set<Long> genreIds, int year, Long mpaId, Integer duration, int likes) {
+
+        static Entry of(Film film, int likes) {
+            Set<Long> genreIds = new HashSet<>();
+            if (film.getGenres() != null) {
+                film.getGenres().stream().map(Genre::getId).forEach(genreIds::add);
+            }
+            Long mpaId = film.getMpa() == null ? null : film.getMpa().getId();
+            return new Entry(genreIds, film.getReleaseDate().getYear(), mpaId, film.getDuration(), likes);
+        }
+
+        Entry withLikes(int likes) {
+            return new Entry(genreIds, year, mpaId, duration, likes);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch для счетчиков по ID фильма с фиксированной памятью depth * width long.
+ * <p>
+ * Оценка никогда не меньше точного значения и с вероятностью не ниже 1 - e^(-depth) превышает его
+ * не более чем на e / width * N, где N - сумма всех добавлений в скетч. Увеличение счетчиков
+ * идет атомарными операциями без блокировок.
+ */
+class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL
+    };
+
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray counters;
+
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Глубина скетча должна быть от 1 до " + SEEDS.length);
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counters = new AtomicLongArray(depth * width);
+    }
+
+    // Возвращает оценку после увеличения, чтобы не проходить по строкам второй раз
+    long add(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, key)));
+        }
+        return estimate;
+    }
+
+    long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, key)));
+        }
+        return estimate;
+    }
+
+    private int index(int row, long key) {
+        return row * width + (int) Long.remainderUnsigned(mix(key ^ SEEDS[row]), width);
+    }
+
+    // Финальное перемешивание MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
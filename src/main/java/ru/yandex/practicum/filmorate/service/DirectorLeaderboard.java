@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.DirectorDao;
+import ru.yandex.practicum.filmorate.dto.DirectorRank;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Рейтинг режиссеров по сумме лайков их фильмов и по числу фильмов.
+ * <p>
+ * Для каждого режиссера хранятся счетчики, которые меняются на каждом лайке, снятии лайка
+ * (через PopularityIndex) и изменении состава режиссеров фильма. Оба рейтинга - упорядоченные
+ * множества, поэтому первые N режиссеров читаются без блокировок и без сортировки. Как и в
+ * PopularityIndex, новая позиция добавляется раньше удаления старой, повторы отбрасываются.
+ */
+@Slf4j
+@Component
+public class DirectorLeaderboard implements CatalogIndex, PopularityIndex.Listener {
+
+    public enum SortBy { LIKES, FILMS }
+
+    private static final Comparator<Ranked> BY_LIKES = Comparator.comparingLong(Ranked::likes).reversed()
+            .thenComparing(Comparator.comparingInt(Ranked::films).reversed())
+            .thenComparingLong(Ranked::directorId);
+    private static final Comparator<Ranked> BY_FILMS = Comparator.comparingInt(Ranked::films).reversed()
+            .thenComparing(Comparator.comparingLong(Ranked::likes).reversed())
+            .thenComparingLong(Ranked::directorId);
+
+    private final DirectorDao directorDao;
+    private final PopularityIndex popularityIndex;
+    private final Map<Long, FilmEntry> films = new HashMap<>();
+    private final Map<Long, Ranked> directors = new ConcurrentHashMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private final NavigableSet<Ranked> byLikes = new ConcurrentSkipListSet<>(BY_LIKES);
+    private final NavigableSet<Ranked> byFilms = new ConcurrentSkipListSet<>(BY_FILMS);
+
+    public DirectorLeaderboard(DirectorDao directorDao, PopularityIndex popularityIndex) {
+        this.directorDao = directorDao;
+        this.popularityIndex = popularityIndex;
+        popularityIndex.addListener(this);
+    }
+
+    @Override
+    public synchronized void startLoad() {
+        directorDao.getAll().forEach(director -> names.put(director.getId(), director.getName()));
+    }
+
+    @Override
+    public synchronized void load(Film film) {
+        apply(film.getId(), FilmEntry.of(film, film.getRate()));
+    }
+
+    @Override
+    public synchronized void finishLoad() {
+        log.info("Рейтинг режиссеров построен: {} режиссеров с фильмами", directors.size());
+    }
+
+    public List<DirectorRank> top(SortBy sortBy, int count) {
+        List<DirectorRank> ranks = new ArrayList<>(Math.min(count, 64));
+        Set<Long> seen = new HashSet<>();
+        for (Ranked ranked : sortBy == SortBy.LIKES ? byLikes : byFilms) {
+            if (ranks.size() == count) {
+                break;
+            }
+            if (seen.add(ranked.directorId())) {
+                ranks.add(new DirectorRank(ranked.directorId(), names.get(ranked.directorId()),
+                        ranked.likes(), ranked.films()));
+            }
+        }
+        return ranks;
+    }
+
+    // Новый или измененный фильм: режиссеры берутся из фильма, накопленные лайки сохраняются.
+    // Новый фильм мог получить лайки, пока его еще не было здесь, их значение берется из PopularityIndex
+    public synchronized void put(Film film) {
+        FilmEntry current = films.get(film.getId());
+        apply(film.getId(), FilmEntry.of(film, current == null ? popularityIndex.likes(film.getId()) : current.likes()));
+    }
+
+    public synchronized void remove(Long filmId) {
+        apply(filmId, null);
+    }
+
+    public void putDirector(Director director) {
+        names.put(director.getId(), director.getName());
+    }
+
+    // Связи с удаленным режиссером уходят каскадно, фильмы остаются
+    public synchronized void removeDirector(Long directorId) {
+        films.replaceAll((filmId, entry) -> entry.withoutDirector(directorId));
+        Ranked current = directors.remove(directorId);
+        if (current != null) {
+            byLikes.remove(current);
+            byFilms.remove(current);
+        }
+        names.remove(directorId);
+    }
+
+    @Override
+    public synchronized void likesChanged(long filmId, int likes) {
+        FilmEntry current = films.get(filmId);
+        if (current != null) {
+            apply(filmId, new FilmEntry(current.directorIds(), likes));
+        }
+    }
+
+    @Override
+    public void filmChanged(long filmId) {
+        // Состав режиссеров приходит через put вместе с самим фильмом
+    }
+
+    private void apply(Long filmId, FilmEntry updated) {
+        FilmEntry previous = updated == null ? films.remove(filmId) : films.put(filmId, updated);
+        Set<Long> affected = new HashSet<>();
+        if (previous != null) {
+            affected.addAll(previous.directorIds());
+        }
+        if (updated != null) {
+            affected.addAll(updated.directorIds());
+        }
+        for (Long directorId : affected) {
+            long likes = 0;
+            int count = 0;
+            if (previous != null && previous.directorIds().contains(directorId)) {
+                likes -= previous.likes();
+                count--;
+            }
+            if (updated != null && updated.directorIds().contains(directorId)) {
+                likes += updated.likes();
+                count++;
+            }
+            if (likes != 0 || count != 0) {
+                adjust(directorId, likes, count);
+            }
+        }
+    }
+
+    private void adjust(Long directorId, long likes, int count) {
+        Ranked current = directors.get(directorId);
+        Ranked updated = current == null
+                ? new Ranked(directorId, likes, count)
+                : new Ranked(directorId, current.likes() + likes, current.films() + count);
+        if (updated.films() > 0) {
+            directors.put(directorId, updated);
+            byLikes.add(updated);
+            byFilms.add(updated);
+        } else {
+            directors.remove(directorId);
+        }
+        if (current != null) {
+            byLikes.remove(current);
+            byFilms.remove(current);
+        }
+    }
+
+    private record Ranked(long directorId, long likes, int films) {
+    }
+
+    private record FilmEntry(Set<Long> directorIds, int likes) {
+
+        static FilmEntry of(Film film, int likes) {
+            Set<Long> directorIds = new HashSet<>();
+            if (film.getDirectors() != null) {
+                film.getDirectors().stream().map(Director::getId).forEach(directorIds::add);
+            }
+            return new FilmEntry(directorIds, likes);
+        }
+
+        FilmEntry withoutDirector(Long directorId) {
+            if (!directorIds.contains(directorId)) {
+                return this;
+            }
+            Set<Long> remaining = new HashSet<>(directorIds);
+            remaining.remove(directorId);
+            return new FilmEntry(remaining, likes);
+        }
+    }
+}
@@ -6,13 +6,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dao.DirectorDao;
 import ru.yandex.practicum.filmorate.dao.FilmDirectorDao;
+import ru.yandex.practicum.filmorate.dto.DirectorRank;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -20,18 +18,29 @@ import java.util.stream.Collectors;
 public class DirectorService {
     private final DirectorDao directorStorage;
     private final FilmDirectorDao filmDirectorDao;
-    private final DirectorDao directorDao;
+    private final FilmCache filmCache;
+    private final FilmFilterIndex filmFilterIndex;
+    private final DirectorLeaderboard directorLeaderboard;
+    private final FilmSearchIndex filmSearchIndex;
 
     public Director create(@Valid Director director) {
         log.info("Создание пользователя: {}", director);
-        return directorStorage.create(director);
+        Director created = directorStorage.create(director);
+        directorLeaderboard.putDirector(created);
+        filmSearchIndex.putDirector(created);
+        return created;
     }
 
     public Director update(@Valid Director director) {
         directorStorage.getById(director.getId())
                 .orElseThrow(() -> new NotFoundException("Режиссер с ID " + director.getId() + " не найден"));
         log.info("Обновление пользователя: {}", director);
-        return directorStorage.update(director);
+        Director updated = directorStorage.update(director);
+        // Имя режиссера хранится в закэшированных фильмах
+        filmCache.invalidateAll(filmDirectorDao.getFilmIdsByDirectorId(director.getId()));
+        directorLeaderboard.putDirector(updated);
+        filmSearchIndex.putDirector(updated);
+        return updated;
     }
 
     public List<Director> getAll() {
@@ -50,19 +59,17 @@ public class DirectorService {
         if (!directorStorage.exists(id)) {
             throw new NotFoundException("Режиссер с ID " + id + " не найден");
         }
+        // Связи удалятся каскадно, поэтому фильмы режиссера выбираем до удаления
+        List<Long> filmIds = filmDirectorDao.getFilmIdsByDirectorId(id);
         directorStorage.deleteById(id);
+        filmCache.invalidateAll(filmIds);
+        filmFilterIndex.removeDirector(id);
+        directorLeaderboard.removeDirector(id);
+        filmSearchIndex.removeDirector(id);
     }
 
-    public List<Director> getDirectorsForFilm(Long filmId) {
-        try {
-            List<Long> directorIds = filmDirectorDao.getDirectorIdsByFilmId(filmId);
-            return directorIds.stream()
-                    .map(id -> directorDao.getById(id).orElse(null))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            log.warn("Error getting directors for film {}: {}", filmId, e.getMessage());
-            return Collections.emptyList();
-        }
+    public List<DirectorRank> getTopDirectors(DirectorLeaderboard.SortBy sortBy, int count) {
+        log.info("Получение {} лучших режиссеров, сортировка: {}", count, sortBy);
+        return directorLeaderboard.top(sortBy, count);
     }
 }
\ No newline at end of file
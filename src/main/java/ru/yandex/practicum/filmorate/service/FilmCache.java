@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.FilmDao;
+import ru.yandex.practicum.filmorate.dto.FilmCacheStats;
+import ru.yandex.practicum.filmorate.dto.FilmLikeCount;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Кэш полностью собранных фильмов по ID перед FilmDao.
+ * Размер ограничен оценкой занимаемой памяти, а не числом записей: описание фильма
+ * может быть в десятки раз длиннее названия. Отсутствующие фильмы не кэшируются.
+ * Экземпляры из кэша общие для всех запросов, вызывающий код не должен их изменять.
+ */
+@Slf4j
+@Component
+public class FilmCache {
+
+    private static final int BASE_WEIGHT = 128;
+    private static final int LINK_WEIGHT = 64;
+
+    private final FilmDao filmDao;
+    private final Cache<Long, Film> cache;
+    private final long maxWeight;
+
+    public FilmCache(FilmDao filmDao, @Value("${filmorate.film-cache.max-weight:33554432}") long maxWeight) {
+        this.filmDao = filmDao;
+        this.maxWeight = maxWeight;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Long id, Film film) -> weigh(film))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Film> getById(Long id) {
+        return Optional.ofNullable(cache.get(id, key -> filmDao.getById(key).orElse(null)));
+    }
+
+    public void put(Film film) {
+        cache.put(film.getId(), film);
+    }
+
+    /**
+     * Заменяет закэшированный фильм копией с новым числом лайков, не перечитывая его из базы.
+     * Копия ставится, только если в кэше более старая версия: параллельная загрузка могла уже
+     * прочитать этот лайк или более поздние изменения.
+     */
+    public void updateLikes(Long id, FilmLikeCount likes) {
+        cache.asMap().computeIfPresent(id, (key, film) -> {
+            if (film.getVersion() != null && film.getVersion() >= likes.getVersion()) {
+                return film;
+            }
+            return new Film(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                    film.getDuration(), film.getMpa(), film.getGenres(), film.getDirectors(),
+                    likes.getLikeCount(), likes.getVersion());
+        });
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            cache.invalidateAll(ids);
+            log.debug("Из кэша удалено фильмов: {}", ids.size());
+        }
+    }
+
+    public FilmCacheStats stats() {
+        CacheStats stats = cache.stats();
+        long weightedSize = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new FilmCacheStats(stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount(),
+                stats.evictionWeight(), cache.estimatedSize(), weightedSize, maxWeight);
+    }
+
+    // Грубая оценка в байтах: строки в UTF-16 плюс фиксированная цена объекта и каждой связи
+    private static int weigh(Film film) {
+        int chars = length(film.getName()) + length(film.getDescription());
+        int links = film.getGenres().size() + film.getDirectors().size();
+        return BASE_WEIGHT + 2 * chars + LINK_WEIGHT * links;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dao.FilmChangeDao;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Срок хранения журнала изменений фильмов. Клиент, чей курсор оказался старше удаленной части
+ * журнала, получает ошибку, запоминает номер из GET /films/changes/head, загружает каталог заново
+ * и продолжает чтение журнала с этого номера.
+ */
+@Slf4j
+@Service
+public class FilmChangeRetention {
+
+    private final FilmChangeDao filmChangeDao;
+    private final Duration retention;
+
+    public FilmChangeRetention(FilmChangeDao filmChangeDao,
+                               @Value("${filmorate.film-changes.retention:P7D}") Duration retention) {
+        this.filmChangeDao = filmChangeDao;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.film-changes.prune-interval:PT1H}")
+    public void prune() {
+        int deleted = filmChangeDao.prune(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Из журнала изменений фильмов удалено записей старше {}: {}", retention, deleted);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.FilmFacets;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Битовые индексы фильмов по жанру, рейтингу MPA, режиссеру и году релиза.
+ * <p>
+ * Каждому фильму выделяется постоянная позиция, и для каждого значения атрибута хранится BitSet
+ * позиций фильмов с этим значением. Составной фильтр вычисляется пересечением и объединением
+ * битовых множеств, результат ранжируется по числу лайков из PopularityIndex.
+ * <p>
+ * Индексы неизменяемы для читателей: запись копирует только затронутые битовые множества и
+ * публикует новый снимок через volatile-поле. Лайки на индексы не влияют, поэтому записей мало.
+ * <p>
+ * Те же множества дают фасеты: число фильмов результата по жанру, MPA и десятилетию - это
+ * мощность пересечения результата с множеством значения, без отдельных запросов GROUP BY.
+ */
+@Slf4j
+@Component
+public class FilmFilterIndex implements CatalogIndex {
+
+    // Небольшой результат фильтра дешевле отсортировать, чем искать его фильмы в общем рейтинге
+    private static final int SORT_THRESHOLD = 4096;
+    private static final BitSet EMPTY = new BitSet();
+
+    private final PopularityIndex popularityIndex;
+    private final Map<Long, Integer> positions = new ConcurrentHashMap<>();
+    private final Map<Long, Attributes> attributes = new HashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(new long[1024], new BitSet(), Map.of(), Map.of(), Map.of(),
+            new TreeMap<>());
+    private Builder builder;
+
+    public FilmFilterIndex(PopularityIndex popularityIndex) {
+        this.popularityIndex = popularityIndex;
+    }
+
+    @Override
+    public synchronized void startLoad() {
+        builder = new Builder();
+    }
+
+    @Override
+    public synchronized void load(Film film) {
+        builder.add(film);
+    }
+
+    @Override
+    public synchronized void finishLoad() {
+        snapshot = builder.build();
+        builder = null;
+        log.info("Битовые индексы фильмов построены: {} фильмов", positions.size());
+    }
+
+    /**
+     * ID первых count фильмов по числу лайков среди подходящих под фильтр.
+     */
+    public List<Long> top(FilmFilter filter, int count) {
+        Snapshot current = snapshot;
+        BitSet matched = current.match(filter);
+        if (matched.cardinality() <= SORT_THRESHOLD) {
+            // Ключи сортировки фиксируются заранее: лайк во время сортировки нарушил бы контракт компаратора
+            Map<Long, Integer> likes = new HashMap<>();
+            matched.stream().forEach(position -> {
+                long filmId = current.filmIds()[position];
+                likes.put(filmId, popularityIndex.likes(filmId));
+            });
+            return likes.keySet().stream()
+                    .sorted(Comparator.comparingInt((Long filmId) -> likes.get(filmId)).reversed()
+                            .thenComparing(Comparator.naturalOrder()))
+                    .limit(count)
+                    .toList();
+        }
+        return popularityIndex.top(count, filmId -> {
+            Integer position = positions.get(filmId);
+            return position != null && matched.get(position);
+        });
+    }
+
+    /**
+     * Фасеты по всем фильмам, подходящим под фильтр.
+     */
+    public FilmFacets facets(FilmFilter filter) {
+        Snapshot current = snapshot;
+        return current.facets(current.match(filter));
+    }
+
+    /**
+     * Фасеты по заданному набору фильмов, например по результатам поиска.
+     */
+    public FilmFacets facets(Collection<Long> filmIds) {
+        Snapshot current = snapshot;
+        BitSet matched = new BitSet();
+        for (Long filmId : filmIds) {
+            Integer position = positions.get(filmId);
+            if (position != null && current.live().get(position)) {
+                matched.set(position);
+            }
+        }
+        return current.facets(matched);
+    }
+
+    public synchronized void put(Film film) {
+        Attributes updated = Attributes.of(film);
+        Attributes previous = attributes.put(film.getId(), updated);
+        if (updated.equals(previous)) {
+            return;
+        }
+        Snapshot current = snapshot;
+        long[] filmIds = current.filmIds();
+        Integer position = positions.get(film.getId());
+        if (position == null) {
+            position = positions.size();
+            if (position == filmIds.length) {
+                filmIds = Arrays.copyOf(filmIds, filmIds.length * 2);
+            }
+            // Новая позиция не встречается в битовых множествах старых снимков, поэтому массив можно дополнять
+            filmIds[position] = film.getId();
+            positions.put(film.getId(), position);
+        }
+        int bit = position;
+        BitSet live = (BitSet) current.live().clone();
+        live.set(bit);
+        snapshot = new Snapshot(filmIds, live,
+                update(current.genres(), bit, previous, updated, Attributes::genreIds),
+                update(current.mpa(), bit, previous, updated, attrs -> Set.of(attrs.mpaId())),
+                update(current.directors(), bit, previous, updated, Attributes::directorIds),
+                new TreeMap<>(update(current.years(), bit, previous, updated, attrs -> Set.of(attrs.year()))));
+    }
+
+    public synchronized void remove(Long filmId) {
+        Attributes previous = attributes.remove(filmId);
+        Integer position = positions.get(filmId);
+        if (previous == null || position == null) {
+            return;
+        }
+        Snapshot current = snapshot;
+        BitSet live = (BitSet) current.live().clone();
+        live.clear(position);
+        snapshot = new Snapshot(current.filmIds(), live,
+                update(current.genres(), position, previous, null, Attributes::genreIds),
+                update(current.mpa(), position, previous, null, attrs -> Set.of(attrs.mpaId())),
+                update(current.directors(), position, previous, null, Attributes::directorIds),
+                new TreeMap<>(update(current.years(), position, previous, null, attrs -> Set.of(attrs.year()))));
+    }
+
+    // Связи с удаленным режиссером уходят каскадно
+    public synchronized void removeDirector(Long directorId) {
+        Snapshot current = snapshot;
+        if (!current.directors().containsKey(directorId)) {
+            return;
+        }
+        attributes.replaceAll((filmId, attrs) -> attrs.withoutDirector(directorId));
+        Map<Long, BitSet> directors = new HashMap<>(current.directors());
+        directors.remove(directorId);
+        snapshot = new Snapshot(current.filmIds(), current.live(), current.genres(), current.mpa(), directors,
+                current.years());
+    }
+
+    private static <K> Map<K, BitSet> update(Map<K, BitSet> bitmaps, int bit, Attributes previous, Attributes updated,
+                                             Function<Attributes, Set<K>> values) {
+        Set<K> before = previous == null ? Set.of() : values.apply(previous);
+        Set<K> after = updated == null ? Set.of() : values.apply(updated);
+        if (before.equals(after)) {
+            return bitmaps;
+        }
+        Map<K, BitSet> copy = new HashMap<>(bitmaps);
+        for (K value : before) {
+            if (!after.contains(value)) {
+                BitSet bitmap = (BitSet) copy.getOrDefault(value, EMPTY).clone();
+                bitmap.clear(bit);
+                copy.put(value, bitmap);
+            }
+        }
+        for (K value : after) {
+            if (!before.contains(value)) {
+                BitSet bitmap = (BitSet) copy.getOrDefault(value, EMPTY).clone();
+                bitmap.set(bit);
+                copy.put(value, bitmap);
+            }
+        }
+        return copy;
+    }
+
+    private record Attributes(Set<Long> genreIds, Long mpaId, Set<Long> directorIds, Integer year) {
+
+        static Attributes of(Film film) {
+            Set<Long> genreIds = new HashSet<>();
+            if (film.getGenres() != null) {
+                film.getGenres().stream().map(Genre::getId).forEach(genreIds::add);
+            }
+            Set<Long> directorIds = new HashSet<>();
+            if (film.getDirectors() != null) {
+                film.getDirectors().stream().map(Director::getId).forEach(directorIds::add);
+            }
+            return new Attributes(genreIds, film.getMpa().getId(), directorIds, film.getReleaseDate().getYear());
+        }
+
+        Attributes withoutDirector(Long directorId) {
+            if (!directorIds.contains(directorId)) {
+                return this;
+            }
+            Set<Long> remaining = new HashSet<>(directorIds);
+            remaining.remove(directorId);
+            return new Attributes(genreIds, mpaId, remaining, year);
+        }
+    }
+
+    private record Snapshot(long[] filmIds, BitSet live, Map<Long, BitSet> genres, Map<Long, BitSet> mpa,
+                            Map<Long, BitSet> directors, NavigableMap<Integer, BitSet> years) {
+
+        BitSet match(FilmFilter filter) {
+            BitSet result = (BitSet) live.clone();
+            if (filter.genreIds() != null && !filter.genreIds().isEmpty()) {
+                if (filter.allGenres()) {
+                    filter.genreIds().forEach(genreId -> result.and(genres.getOrDefault(genreId, EMPTY)));
+                } else {
+                    result.and(union(filter.genreIds().stream().map(genres::get).toList()));
+                }
+            }
+            if (filter.yearFrom() != null || filter.yearTo() != null) {
+                int from = filter.yearFrom() == null ? Integer.MIN_VALUE : filter.yearFrom();
+                int to = filter.yearTo() == null ? Integer.MAX_VALUE : filter.yearTo();
+                result.and(from > to ? EMPTY : union(years.subMap(from, true, to, true).values()));
+            }
+            if (filter.mpaIds() != null && !filter.mpaIds().isEmpty()) {
+                result.and(union(filter.mpaIds().stream().map(mpa::get).toList()));
+            }
+            if (filter.directorIds() != null && !filter.directorIds().isEmpty()) {
+                result.and(union(filter.directorIds().stream().map(directors::get).toList()));
+            }
+            return result;
+        }
+
+        FilmFacets facets(BitSet matched) {
+            Map<Integer, Integer> decades = new TreeMap<>();
+            count(years, matched).forEach((year, films) ->
+                    decades.merge(Math.floorDiv(year, 10) * 10, films, Integer::sum));
+            return new FilmFacets(matched.cardinality(), count(genres, matched), count(mpa, matched), decades);
+        }
+
+        private static <K> Map<K, Integer> count(Map<K, BitSet> bitmaps, BitSet matched) {
+            Map<K, Integer> counts = new TreeMap<>();
+            bitmaps.forEach((value, bitmap) -> {
+                if (bitmap.intersects(matched)) {
+                    BitSet both = (BitSet) bitmap.clone();
+                    both.and(matched);
+                    counts.put(value, both.cardinality());
+                }
+            });
+            return counts;
+        }
+
+        private static BitSet union(Collection<BitSet> bitmaps) {
+            BitSet union = new BitSet();
+            for (BitSet bitmap : bitmaps) {
+                if (bitmap != null) {
+                    union.or(bitmap);
+                }
+            }
+            return union;
+        }
+    }
+
+    // При построении множества изменяются на месте и публикуются одним снимком
+    private class Builder {
+        private final List<Long> filmIds = new ArrayList<>();
+        private final BitSet live = new BitSet();
+        private final Map<Long, BitSet> genres = new HashMap<>();
+        private final Map<Long, BitSet> mpa = new HashMap<>();
+        private final Map<Long, BitSet> directors = new HashMap<>();
+        private final NavigableMap<Integer, BitSet> years = new TreeMap<>();
+
+        void add(Film film) {
+            Attributes attrs = Attributes.of(film);
+            int position = filmIds.size();
+            filmIds.add(film.getId());
+            positions.put(film.getId(), position);
+            attributes.put(film.getId(), attrs);
+            live.set(position);
+            attrs.genreIds().forEach(genreId -> genres.computeIfAbsent(genreId, id -> new BitSet()).set(position));
+            mpa.computeIfAbsent(attrs.mpaId(), id -> new BitSet()).set(position);
+            attrs.directorIds().forEach(directorId ->
+                    directors.computeIfAbsent(directorId, id -> new BitSet()).set(position));
+            years.computeIfAbsent(attrs.year(), year -> new BitSet()).set(position);
+        }
+
+        Snapshot build() {
+            long[] ids = new long[Math.max(1024, filmIds.size() * 2)];
+            for (int i = 0; i < filmIds.size(); i++) {
+                ids[i] = filmIds.get(i);
+            }
+            return new Snapshot(ids, live, genres, mpa, directors, years);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.DirectorDao;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Инвертированный индекс по триграммам названия, описания и имени режиссера.
+ * <p>
+ * Поиск сохраняет прежнюю семантику подстроки: кандидаты - пересечение списков фильмов для всех
+ * триграмм запроса, после чего каждый кандидат проверяется на вхождение запроса целиком. Запросы
+ * короче триграммы проверяются по текстам в памяти. Индекс строится при старте проходом по каталогу и дальше
+ * обновляется при записи фильмов и режиссеров.
+ * <p>
+ * Записи сериализуются на мониторе индекса, чтение идет без блокировок. Новые триграммы
+ * добавляются раньше, чем удаляются старые, а окончательное решение принимается по текущему
+ * тексту, поэтому читатель не пропускает фильм и не получает лишний.
+ */
+@Slf4j
+@Component
+public class FilmSearchIndex implements CatalogIndex {
+
+    public static final String TITLE = "title";
+    public static final String DIRECTOR = "director";
+    public static final String DESCRIPTION = "description";
+
+    private static final int GRAM = 3;
+    // Совпадение в названии важнее совпадения в имени режиссера, а оно важнее описания
+    private static final Map<String, Integer> WEIGHTS = Map.of(TITLE, 3, DIRECTOR, 2, DESCRIPTION, 1);
+
+    private final DirectorDao directorDao;
+    private final PopularityIndex popularityIndex;
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final Map<Long, String> directorNames = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> directorFilms = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> titleGrams = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> descriptionGrams = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> directorGrams = new ConcurrentHashMap<>();
+
+    public FilmSearchIndex(DirectorDao directorDao, PopularityIndex popularityIndex) {
+        this.directorDao = directorDao;
+        this.popularityIndex = popularityIndex;
+    }
+
+    @Override
+    public void startLoad() {
+        directorDao.getAll().forEach(this::putDirector);
+    }
+
+    @Override
+    public void load(Film film) {
+        put(film);
+    }
+
+    @Override
+    public void finishLoad() {
+        log.info("Поисковый индекс построен: {} фильмов, {} режиссеров", documents.size(), directorNames.size());
+    }
+
+    /**
+     * ID фильмов, у которых хотя бы одно из полей by содержит query без учета регистра.
+     * По умолчанию фильмы упорядочены по числу лайков, с byRelevance - по релевантности.
+     */
+    public List<Long> search(String query, Set<String> by, boolean byRelevance) {
+        String text = normalize(query);
+        if (text.isEmpty() || by == null || by.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> scores = new HashMap<>();
+        if (by.contains(TITLE)) {
+            for (Long filmId : match(titleGrams, documents.keySet(), text)) {
+                Document document = documents.get(filmId);
+                if (document != null && document.title().contains(text)) {
+                    scores.merge(filmId, score(document.title(), text, TITLE), Integer::sum);
+                }
+            }
+        }
+        if (by.contains(DESCRIPTION)) {
+            for (Long filmId : match(descriptionGrams, documents.keySet(), text)) {
+                Document document = documents.get(filmId);
+                if (document != null && document.description().contains(text)) {
+                    scores.merge(filmId, score(document.description(), text, DESCRIPTION), Integer::sum);
+                }
+            }
+        }
+        if (by.contains(DIRECTOR)) {
+            for (Long directorId : match(directorGrams, directorNames.keySet(), text)) {
+                String name = directorNames.get(directorId);
+                if (name == null || !name.contains(text)) {
+                    continue;
+                }
+                int score = score(name, text, DIRECTOR);
+                for (Long filmId : directorFilms.getOrDefault(directorId, Set.of())) {
+                    Document document = documents.get(filmId);
+                    if (document != null && document.directorIds().contains(directorId)) {
+                        scores.merge(filmId, score, Integer::sum);
+                    }
+                }
+            }
+        }
+        // Лайки меняются параллельно, поэтому сортировка идет по их копии: иначе порядок сравнения противоречив
+        Map<Long, Integer> likes = new HashMap<>();
+        scores.keySet().forEach(filmId -> likes.put(filmId, popularityIndex.likes(filmId)));
+        Comparator<Long> byLikes = Comparator.comparingInt((Long filmId) -> likes.get(filmId)).reversed()
+                .thenComparing(Comparator.naturalOrder());
+        Comparator<Long> order = byRelevance
+                ? Comparator.comparingInt((Long filmId) -> scores.get(filmId)).reversed().thenComparing(byLikes)
+                : byLikes;
+        return scores.keySet().stream().sorted(order).toList();
+    }
+
+    public synchronized void put(Film film) {
+        Set<Long> directorIds = new HashSet<>();
+        if (film.getDirectors() != null) {
+            film.getDirectors().stream().map(Director::getId).forEach(directorIds::add);
+        }
+        Document updated = new Document(normalize(film.getName()), normalize(film.getDescription()), directorIds);
+        Document previous = documents.put(film.getId(), updated);
+        reindex(titleGrams, film.getId(), previous == null ? null : previous.title(), updated.title());
+        reindex(descriptionGrams, film.getId(), previous == null ? null : previous.description(),
+                updated.description());
+        directorIds.forEach(directorId ->
+                directorFilms.computeIfAbsent(directorId, id -> ConcurrentHashMap.newKeySet()).add(film.getId()));
+        if (previous != null) {
+            for (Long directorId : previous.directorIds()) {
+                if (!directorIds.contains(directorId)) {
+                    removePosting(directorFilms, directorId, film.getId());
+                }
+            }
+        }
+    }
+
+    public synchronized void remove(Long filmId) {
+        Document previous = documents.remove(filmId);
+        if (previous == null) {
+            return;
+        }
+        reindex(titleGrams, filmId, previous.title(), null);
+        reindex(descriptionGrams, filmId, previous.description(), null);
+        previous.directorIds().forEach(directorId -> removePosting(directorFilms, directorId, filmId));
+    }
+
+    public synchronized void putDirector(Director director) {
+        String name = normalize(director.getName());
+        String previous = directorNames.put(director.getId(), name);
+        reindex(directorGrams, director.getId(), previous, name);
+    }
+
+    // Связи с удаленным режиссером уходят каскадно, фильмы остаются
+    public synchronized void removeDirector(Long directorId) {
+        String previous = directorNames.remove(directorId);
+        reindex(directorGrams, directorId, previous, null);
+        Set<Long> filmIds = directorFilms.remove(directorId);
+        if (filmIds != null) {
+            filmIds.forEach(filmId -> documents.computeIfPresent(filmId, (id, document) ->
+                    document.withoutDirector(directorId)));
+        }
+    }
+
+    // Кандидаты по триграммам; короткий запрос проверяется по всем ключам
+    private static Collection<Long> match(Map<String, Set<Long>> grams, Set<Long> all, String text) {
+        if (text.length() < GRAM) {
+            return all;
+        }
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : grams(text)) {
+            Set<Long> posting = grams.get(gram);
+            if (posting == null || posting.isEmpty()) {
+                return List.of();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(postings.getFirst());
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result;
+    }
+
+    // Совпадение с начала слова весит вдвое больше, полное совпадение поля - еще вдвое
+    private static int score(String field, String text, String by) {
+        int score = WEIGHTS.get(by);
+        int index = field.indexOf(text);
+        if (index == 0 || !Character.isLetterOrDigit(field.charAt(index - 1))) {
+            score *= 2;
+        }
+        if (field.equals(text)) {
+            score *= 2;
+        }
+        return score;
+    }
+
+    private static void reindex(Map<String, Set<Long>> grams, Long id, String previous, String updated) {
+        Set<String> before = previous == null ? Set.of() : grams(previous);
+        Set<String> after = updated == null ? Set.of() : grams(updated);
+        for (String gram : after) {
+            if (!before.contains(gram)) {
+                grams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+        for (String gram : before) {
+            if (!after.contains(gram)) {
+                removePosting(grams, gram, id);
+            }
+        }
+    }
+
+    private static <K> void removePosting(Map<K, Set<Long>> postings, K key, Long id) {
+        postings.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase();
+    }
+
+    private record Document(String title, String description, Set<Long> directorIds) {
+
+        Document withoutDirector(Long directorId) {
+            Set<Long> remaining = new HashSet<>(directorIds);
+            remaining.remove(directorId);
+            return new Document(title, description, remaining);
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dao.*;
 import ru.yandex.practicum.filmorate.dto.EventDto;
+import ru.yandex.practicum.filmorate.dto.FacetedFilms;
+import ru.yandex.practicum.filmorate.dto.FilmBatchResult;
+import ru.yandex.practicum.filmorate.dto.FilmCacheStats;
+import ru.yandex.practicum.filmorate.dto.FilmChangesHead;
+import ru.yandex.practicum.filmorate.dto.FilmChangesResponse;
+import ru.yandex.practicum.filmorate.dto.FilmLikeCount;
+import ru.yandex.practicum.filmorate.dto.FilmPage;
+import ru.yandex.practicum.filmorate.dto.FilmsByIdsResponse;
+import ru.yandex.practicum.filmorate.dto.LikeBurst;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChange;
+import ru.yandex.practicum.filmorate.model.FilmChangeType;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static ru.yandex.practicum.filmorate.util.ActionsId.*;
@@ -29,57 +48,241 @@ public class FilmService {
     private final UserDao userDao;
     private final LikeDao likeDao;
     private final EventDao eventDao;
-    private final DirectorService directorService;
     private final FilmDirectorDao filmDirectorDao;
+    private final Validator validator;
+    private final FilmCache filmCache;
+    private final FilmChangeDao filmChangeDao;
+    private final PopularityIndex popularityIndex;
+    private final PopularFilmsCache popularFilmsCache;
+    private final TrendingIndex trendingIndex;
+    private final LikeBurstTracker likeBurstTracker;
+    private final FilmFilterIndex filmFilterIndex;
+    private final CatalogStatsRollup catalogStatsRollup;
+    private final DirectorLeaderboard directorLeaderboard;
+    private final FilmSearchIndex filmSearchIndex;
+
+    // Номер изменения выдается при вставке, а виден после коммита: пропуск в номерах считается откатом,
+    // только когда следующее за ним изменение старше этого окна, до тех пор журнал отдается до пропуска
+    private static final Duration CHANGE_SETTLE_WINDOW = Duration.ofSeconds(5);
 
     public Film create(@Valid Film film) {
         validate(film);
         log.info("Создание фильма: {}", film);
-        return filmDao.create(film);
+        Film created = filmDao.create(film);
+        indexFilm(created);
+        return created;
     }
 
     public void delete(Long filmId) {
-        if (filmDao.getById(filmId).isEmpty()) {
+        if (filmCache.getById(filmId).isEmpty()) {
             throw new NotFoundException("Фильм с ID " + filmId + " не найден");
         }
         filmDao.delete(filmId);
+        unindexFilm(filmId);
         log.info("Film deleted id={}", filmId);
     }
 
+    // Фильм сразу скрывается от чтения, лайки и отзывы удаляет PurgeService
+    public void deleteAsync(Long filmId) {
+        filmDao.markDeleted(filmId);
+        unindexFilm(filmId);
+        log.info("Film marked for purge id={}", filmId);
+    }
+
+    /**
+     * Пакетное создание фильмов. Ссылки на MPA, жанры и режиссеров проверяются тремя
+     * запросами на весь пакет, корректные фильмы сохраняются одной транзакцией,
+     * результат возвращается по каждому элементу в порядке входного массива.
+     */
+    public List<FilmBatchResult> createAll(List<Film> films) {
+        log.info("Пакетное создание {} фильмов", films.size());
+        FilmBatchResult[] results = new FilmBatchResult[films.size()];
+        Map<Integer, Film> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < films.size(); i++) {
+            String error = checkFilm(films.get(i));
+            if (error != null) {
+                results[i] = FilmBatchResult.rejected(i, error);
+            } else {
+                candidates.put(i, films.get(i));
+            }
+        }
+
+        Set<Long> mpaIds = new HashSet<>();
+        Set<Long> genreIds = new HashSet<>();
+        Set<Long> directorIds = new HashSet<>();
+        candidates.values().forEach(film -> {
+            mpaIds.add(film.getMpa().getId());
+            genreIds.addAll(genreIds(film));
+            directorIds.addAll(directorIds(film));
+        });
+        Set<Long> knownMpa = mpaDao.findExistingIds(mpaIds);
+        Set<Long> knownGenres = genreDao.findExistingIds(genreIds);
+        Set<Long> knownDirectors = directorDao.findExistingIds(directorIds);
+
+        List<Integer> accepted = new ArrayList<>();
+        List<Film> toCreate = new ArrayList<>();
+        candidates.forEach((index, film) -> {
+            List<String> errors = unknownReferences(film, knownMpa, knownGenres, knownDirectors);
+            if (errors.isEmpty()) {
+                accepted.add(index);
+                toCreate.add(film);
+            } else {
+                results[index] = FilmBatchResult.rejected(index, String.join("; ", errors));
+            }
+        });
+
+        List<Film> created = filmDao.createAll(toCreate);
+        created.forEach(this::indexFilm);
+        for (int i = 0; i < created.size(); i++) {
+            results[accepted.get(i)] = FilmBatchResult.created(accepted.get(i), created.get(i).getId());
+        }
+        log.info("Создано фильмов: {}, отклонено: {}", created.size(), films.size() - created.size());
+        return Arrays.asList(results);
+    }
+
     public Film update(@Valid Film film) {
         validate(film);
         log.info("Обновление фильма: {}", film);
-        return filmDao.update(film);
+        Film updated = filmDao.update(film);
+        filmCache.invalidate(updated.getId());
+        indexFilm(updated);
+        return updated;
     }
 
-    public List<Film> getAll() {
-        log.info("Получение всех фильмов");
-        List<Film> films = filmDao.getAll();
-        films.forEach(film -> {
-            film.setGenres(genreDao.getGenresByFilmId(film.getId()));
-            film.setDirectors(directorService.getDirectorsForFilm(film.getId()));
-        });
+    public List<Film> getAll(Set<FilmField> fields) {
+        log.info("Получение всех фильмов, поля: {}", fields);
+        List<Film> films = loadGenresAndDirectors(filmDao.getAll(fields), fields);
         log.info("Найдено фильмов: {}", films.size());
         return films;
     }
 
+    public void exportAll(Consumer<Film> consumer) {
+        log.info("Потоковая выгрузка всех фильмов");
+        filmDao.streamAll(consumer);
+    }
+
+    public FilmPage getPage(Long after, int limit, Set<FilmField> fields) {
+        log.info("Получение страницы фильмов после ID {} размером {}, поля: {}", after, limit, fields);
+        // Берём на одну запись больше, чтобы понять, есть ли следующая страница
+        List<Film> films = filmDao.getPage(after == null ? 0 : after, limit + 1, fields);
+        Long nextCursor = null;
+        if (films.size() > limit) {
+            films = new ArrayList<>(films.subList(0, limit));
+            nextCursor = films.getLast().getId();
+        }
+        return new FilmPage(loadGenresAndDirectors(films, fields), nextCursor);
+    }
+
     public Film getById(Long id) {
         log.info("Получение фильма с ID: {}", id);
-        Film film = filmDao.getById(id)
+        Film film = filmCache.getById(id)
                 .orElseThrow(() -> new NotFoundException("Фильм с ID " + id + " не найден"));
-        film.setGenres(genreDao.getGenresByFilmId(film.getId()));
-        film.setDirectors(directorService.getDirectorsForFilm(film.getId()));
         log.info("Найден фильм: {}", film.getName());
         return film;
     }
 
+    public FilmCacheStats getCacheStats() {
+        return filmCache.stats();
+    }
+
+    public FilmsByIdsResponse getByIds(List<Long> ids) {
+        log.info("Получение фильмов по списку ID: {}", ids);
+        Map<Long, Film> found = loadFilms(ids).stream()
+                .collect(Collectors.toMap(Film::getId, film -> film));
+        List<Film> films = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        // Повторяющиеся ID отдаём один раз, в позиции первого вхождения
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Film film = found.get(id);
+            if (film != null) {
+                films.add(film);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        log.info("Найдено фильмов: {}, не найдено ID: {}", films.size(), missingIds);
+        return new FilmsByIdsResponse(films, missingIds);
+    }
+
+    public FilmChangesResponse getChangesSince(long since, int limit) {
+        log.info("Получение изменений фильмов после {} (не более {})", since, limit);
+        List<FilmChange> changes = filmChangeDao.getChangesSince(since, limit + 1);
+        // Номер очистки читаем после изменений: очистка между двумя запросами тоже будет замечена
+        long prunedSeq = filmChangeDao.getPrunedSeq();
+        if (since < prunedSeq) {
+            throw new ValidationException("Изменения до номера " + prunedSeq + " удалены из журнала, каталог " +
+                    "нужно загрузить заново и продолжить с номера из GET /films/changes/head");
+        }
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+        int stable = stableCount(changes, since, Instant.now().minus(CHANGE_SETTLE_WINDOW));
+        if (stable < changes.size()) {
+            changes = changes.subList(0, stable);
+            hasMore = false;
+        }
+        long nextSeq = changes.isEmpty() ? since : changes.getLast().getSeq();
+
+        // Несколько изменений одного фильма схлопываются в последнее
+        Map<Long, FilmChangeType> latest = new LinkedHashMap<>();
+        for (FilmChange change : changes) {
+            latest.remove(change.getFilmId());
+            latest.put(change.getFilmId(), change.getType());
+        }
+        List<Long> upsertIds = latest.entrySet().stream()
+                .filter(entry -> entry.getValue() == FilmChangeType.UPSERT)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<Long, Film> found = loadFilms(upsertIds).stream()
+                .collect(Collectors.toMap(Film::getId, film -> film));
+
+        List<Film> films = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        // Фильм, удалённый позже последнего учтённого изменения, отдаём как удалённый
+        latest.forEach((filmId, type) -> {
+            Film film = type == FilmChangeType.UPSERT ? found.get(filmId) : null;
+            if (film != null) {
+                films.add(film);
+            } else {
+                deletedIds.add(filmId);
+            }
+        });
+        log.info("Изменено фильмов: {}, удалено: {}, следующий номер: {}", films.size(), deletedIds.size(), nextSeq);
+        return new FilmChangesResponse(films, deletedIds, nextSeq, hasMore);
+    }
+
+    // Номер, до которого журнал уже устоялся: берется до полной загрузки каталога
+    public FilmChangesHead getChangesHead() {
+        long seq = filmChangeDao.getHeadSeq(Instant.now().minus(CHANGE_SETTLE_WINDOW));
+        log.info("Текущий номер журнала изменений фильмов: {}", seq);
+        return new FilmChangesHead(seq);
+    }
+
+    // Число изменений от начала списка, до которых в журнале нет незакоммиченных номеров
+    private static int stableCount(List<FilmChange> changes, long since, Instant settledBefore) {
+        long expected = since + 1;
+        for (int i = 0; i < changes.size(); i++) {
+            FilmChange change = changes.get(i);
+            if (change.getSeq() != expected && change.getChangedAt().isAfter(settledBefore)) {
+                return i;
+            }
+            expected = change.getSeq() + 1;
+        }
+        return changes.size();
+    }
+
     public void addLike(Long filmId, Long userId) {
         getById(filmId);
         userDao.getById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
-        List<Long> filmsIds = likeDao.getUserLikedFilmsId(userId);
-        if (!filmsIds.contains(filmId)) {
-            likeDao.addLike(filmId, userId);
+        // Индексы в памяти меняются, только если лайк действительно добавлен: проверка и вставка - одна операция
+        Optional<FilmLikeCount> likes = likeDao.addLike(filmId, userId);
+        if (likes.isPresent()) {
+            filmCache.updateLikes(filmId, likes.get());
+            popularityIndex.adjustLikes(filmId, 1);
+            trendingIndex.record(filmId, 1, Instant.now());
+            likeBurstTracker.record(filmId);
         }
         log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
         eventDao.saveEvent(new EventDto(userId, filmId, LIKE.getId(), ADD.getId(), Instant.now()));
@@ -90,101 +293,210 @@ public class FilmService {
         getById(filmId);
         userDao.getById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
-        List<Long> filmsIds = likeDao.getUserLikedFilmsId(userId);
-        if (filmsIds.contains(filmId)) {
-            likeDao.removeLike(filmId, userId);
+        Optional<FilmLikeCount> likes = likeDao.removeLike(filmId, userId);
+        if (likes.isPresent()) {
+            filmCache.updateLikes(filmId, likes.get());
+            popularityIndex.adjustLikes(filmId, -1);
+            trendingIndex.record(filmId, -1, Instant.now());
         }
         log.info("Пользователь {} удалил лайк у фильма {}", userId, filmId);
         eventDao.saveEvent(new EventDto(userId, filmId, LIKE.getId(), REMOVE.getId(), Instant.now()));
     }
 
+    // Фильмы берутся из кэша целиком, параметр fields применяет только контроллер при сериализации
     public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
         log.info("Получение {} популярных фильмов с фильтром по жанру {} и году {}", count, genreId, year);
-        List<Film> films = filmDao.getPopular(count, genreId, year);
-        films.forEach(film -> {
-            film.setGenres(genreDao.getGenresByFilmId(film.getId()));
-            film.setDirectors(directorService.getDirectorsForFilm(film.getId()));
-        });
+        List<Film> films = popularFilmsCache.get(count, genreId, year);
         log.info("Найдено популярных фильмов: {}", films.size());
         return films;
     }
 
+    public List<Film> getPopularFilms(int count, FilmFilter filter) {
+        log.info("Получение {} популярных фильмов с фильтром {}", count, filter);
+        List<Film> films = new ArrayList<>();
+        for (Long filmId : filmFilterIndex.top(filter, count)) {
+            filmCache.getById(filmId).ifPresent(films::add);
+        }
+        log.info("Найдено популярных фильмов: {}", films.size());
+        return films;
+    }
+
+    public FacetedFilms getPopularFilmsWithFacets(int count, FilmFilter filter) {
+        return new FacetedFilms(getPopularFilms(count, filter), filmFilterIndex.facets(filter));
+    }
+
+    public List<Film> getTrendingFilms(TrendingWindow window, int count, Integer genreId) {
+        log.info("Получение {} фильмов в тренде за окно {} с фильтром по жанру {}", count, window, genreId);
+        List<Film> films = new ArrayList<>();
+        for (Long filmId : trendingIndex.top(window, count, genreId)) {
+            filmCache.getById(filmId).ifPresent(films::add);
+        }
+        log.info("Найдено фильмов в тренде: {}", films.size());
+        return films;
+    }
+
+    public List<LikeBurst> getLikeBursts(int buckets, int limit) {
+        log.info("Получение лидеров по лайкам за {} последних интервалов", buckets);
+        return likeBurstTracker.recent(buckets, limit);
+    }
+
     public List<Film> getFilmsByDirector(Long directorId, String sortBy) {
         log.info("Получение фильмов режиссера {} с сортировкой по {}", directorId, sortBy);
         directorDao.getById(directorId)
                 .orElseThrow(() -> new NotFoundException("Режиссер с ID " + directorId + " не найден"));
 
-        List<Long> filmIds = filmDirectorDao.getFilmIdsByDirectorId(directorId);
-        List<Film> films = filmIds.stream()
-                .map(this::getById)
-                .collect(Collectors.toList());
+        List<Film> films = loadFilms(filmDirectorDao.getFilmIdsByDirectorId(directorId));
 
         if ("year".equals(sortBy)) {
             films.sort(Comparator.comparing(Film::getReleaseDate));
         } else if ("likes".equals(sortBy)) {
-            films.sort(Comparator.comparingInt(f -> -likeDao.getLikes(f.getId()).size()));
+            films.sort(Comparator.comparingInt(f -> -f.getRate()));
         }
 
         log.info("Найдено фильмов режиссера: {}", films.size());
         return films;
     }
 
-    public List<Film> searchFilms(String query, Set<String> by) {
-        log.info("Поиск фильмов по запросу: '{}' в полях: {}", query, by);
-        List<Film> films = filmDao.searchFilms(query, by);
-        films.forEach(film -> {
-            film.setGenres(genreDao.getGenresByFilmId(film.getId()));
-            film.setDirectors(directorService.getDirectorsForFilm(film.getId()));
-            film.setRate(likeDao.getLikes(film.getId()).size());
-        });
-        films = films.stream().sorted((f1, f2) -> f2.getRate() - f1.getRate()).collect(Collectors.toList());
-
-        // Логируем найденные фильмы для отладки
-        films.forEach(film -> {
-            log.info("Найден фильм: ID={}, Name={}, Directors={}",
-                    film.getId(), film.getName(),
-                    film.getDirectors().stream().map(Director::getName).collect(Collectors.toList()));
-        });
-
+    public List<Film> searchFilms(String query, Set<String> by, boolean byRelevance) {
+        log.info("Поиск фильмов по запросу: '{}' в полях: {}, по релевантности: {}", query, by, byRelevance);
+        List<Film> films = new ArrayList<>();
+        for (Long filmId : filmSearchIndex.search(query, by, byRelevance)) {
+            filmCache.getById(filmId).ifPresent(films::add);
+        }
+        log.info("Найдено фильмов: {}", films.size());
         return films;
     }
 
+    public FacetedFilms searchFilmsWithFacets(String query, Set<String> by, boolean byRelevance) {
+        List<Film> films = searchFilms(query, by, byRelevance);
+        return new FacetedFilms(films, filmFilterIndex.facets(films.stream().map(Film::getId).toList()));
+    }
+
     public List<Film> getCommonFilms(Long userId, Long friendId) {
         log.info("Получение общих фильмов пользователей {} и {}", userId, friendId);
-        List<Long> userLikes = likeDao.getUserLikedFilmsId(userId);
-        List<Long> friendLikes = likeDao.getUserLikedFilmsId(friendId);
-
-        List<Film> commonFilms = userLikes.stream()
+        Set<Long> friendLikes = new HashSet<>(likeDao.getUserLikedFilmsId(friendId));
+        List<Long> commonIds = likeDao.getUserLikedFilmsId(userId).stream()
                 .filter(friendLikes::contains)
-                .map(filmDao::getById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .sorted(Comparator.comparingInt(film -> -likeDao.getLikes(film.getId()).size()))
+                .toList();
+
+        List<Film> commonFilms = loadFilms(commonIds).stream()
+                .sorted(Comparator.comparingInt(film -> -film.getRate()))
                 .toList();
 
         log.info("Найдено общих фильмов: {}", commonFilms.size());
         return commonFilms;
     }
 
-    private void validate(Film film) {
+    // Индексы в памяти обновляются после записи в базу
+    private void indexFilm(Film film) {
+        popularityIndex.put(film);
+        filmFilterIndex.put(film);
+        catalogStatsRollup.put(film);
+        directorLeaderboard.put(film);
+        filmSearchIndex.put(film);
+    }
+
+    private void unindexFilm(Long filmId) {
+        filmCache.invalidate(filmId);
+        popularityIndex.remove(filmId);
+        trendingIndex.remove(filmId);
+        filmFilterIndex.remove(filmId);
+        catalogStatsRollup.remove(filmId);
+        directorLeaderboard.remove(filmId);
+        filmSearchIndex.remove(filmId);
+    }
+
+    private List<Film> loadFilms(Collection<Long> ids) {
+        return loadGenresAndDirectors(filmDao.getByIds(ids));
+    }
+
+    /**
+     * Заполняет жанры и режиссеров для всего списка фильмов
+     * двумя запросами независимо от размера списка.
+     */
+    public List<Film> loadGenresAndDirectors(List<Film> films) {
+        return loadGenresAndDirectors(films, FilmField.ALL);
+    }
+
+    // Запросы к связям выполняются только для полей, которые попадут в ответ
+    private List<Film> loadGenresAndDirectors(List<Film> films, Set<FilmField> fields) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        List<Long> filmIds = films.stream().map(Film::getId).toList();
+        if (fields.contains(FilmField.GENRES)) {
+            Map<Long, List<Genre>> genres = genreDao.getGenresByFilmIds(filmIds);
+            films.forEach(film -> film.setGenres(genres.getOrDefault(film.getId(), Collections.emptyList())));
+        }
+        if (fields.contains(FilmField.DIRECTORS)) {
+            Map<Long, List<Director>> directors = directorDao.getDirectorsByFilmIds(filmIds);
+            films.forEach(film -> film.setDirectors(directors.getOrDefault(film.getId(), Collections.emptyList())));
+        }
+        return films;
+    }
+
+    // Проверки, которые для одиночного фильма выполняют контроллер и bean validation
+    private String checkFilm(Film film) {
+        if (film == null) {
+            return "Фильм не передан";
+        }
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (film.getReleaseDate().isBefore(Film.MIN_RELEASE_DATE)) {
+            return "Дата релиза не может быть раньше 28 декабря 1895 года";
+        }
+        if (film.getDuration() == null) {
+            return "Продолжительность обязательна";
+        }
+        if (film.getMpa().getId() == null) {
+            return "ID рейтинга MPA обязателен";
+        }
+        return null;
+    }
+
+    private List<String> unknownReferences(Film film, Set<Long> knownMpa, Set<Long> knownGenres,
+                                           Set<Long> knownDirectors) {
+        List<String> errors = new ArrayList<>();
         Long mpaId = film.getMpa().getId();
-        mpaDao.getMpaById(mpaId)
-                .orElseThrow(() -> new NotFoundException("Рейтинг MPA с ID " + mpaId + " не найден"));
-
-        if (film.getGenres() != null) {
-            for (Genre genre : film.getGenres()) {
-                Long genreId = genre.getId();
-                genreDao.getGenreById(genreId)
-                        .orElseThrow(() -> new NotFoundException("Жанр с ID " + genreId + " не найден"));
-            }
+        if (!knownMpa.contains(mpaId)) {
+            errors.add("Рейтинг MPA с ID " + mpaId + " не найден");
         }
+        genreIds(film).stream()
+                .filter(genreId -> !knownGenres.contains(genreId))
+                .forEach(genreId -> errors.add("Жанр с ID " + genreId + " не найден"));
+        directorIds(film).stream()
+                .filter(directorId -> !knownDirectors.contains(directorId))
+                .forEach(directorId -> errors.add("Режиссер с ID " + directorId + " не найден"));
+        return errors;
+    }
 
-        if (film.getDirectors() != null) {
-            for (Director director : film.getDirectors()) {
-                Long directorId = director.getId();
-                directorDao.getById(directorId)
-                        .orElseThrow(() -> new NotFoundException("Режиссер с ID " + directorId + " не найден"));
-            }
+    private Set<Long> genreIds(Film film) {
+        if (film.getGenres() == null) {
+            return Collections.emptySet();
+        }
+        return film.getGenres().stream().map(Genre::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private Set<Long> directorIds(Film film) {
+        if (film.getDirectors() == null) {
+            return Collections.emptySet();
+        }
+        return film.getDirectors().stream().map(Director::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    // Не больше одного запроса на справочник; все неизвестные ID попадают в одно сообщение
+    private void validate(Film film) {
+        Set<Long> knownMpa = mpaDao.findExistingIds(Collections.singleton(film.getMpa().getId()));
+        Set<Long> knownGenres = genreDao.findExistingIds(genreIds(film));
+        Set<Long> knownDirectors = directorDao.findExistingIds(directorIds(film));
+        List<String> errors = unknownReferences(film, knownMpa, knownGenres, knownDirectors);
+        if (!errors.isEmpty()) {
+            throw new NotFoundException(String.join("; ", errors));
         }
     }
 
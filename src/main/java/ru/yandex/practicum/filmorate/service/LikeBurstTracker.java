@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.LikeBurst;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Приблизительный учет всплесков лайков по интервалам времени с фиксированной памятью.
+ * <p>
+ * Для каждого интервала ведется count-min sketch глубины 4 и ширины 1024 (32 КБ) и короткий
+ * список кандидатов в лидеры. Оценка числа лайков фильма не меньше точной и с вероятностью
+ * не ниже 1 - e^-4 (~98%) превышает ее не более чем на e / 1024 (~0.27%) от всех лайков интервала.
+ * <p>
+ * Кандидаты - не больше 32 фильмов с наибольшими оценками на момент их последнего лайка: фильм
+ * с оценкой выше наименьшей в заполненном списке вытесняет этот фильм. Оценка кандидата
+ * обновляется только на его собственных лайках, поэтому фильм с долей лайков выше погрешности
+ * почти всегда оказывается в списке, но строгой гарантии этого нет.
+ * <p>
+ * Интервалы хранятся в кольцевом буфере; устаревший интервал заменяется новым через CAS.
+ * Sketch обновляется без блокировок, список кандидатов - под монитором интервала за O(log 32)
+ * и только для фильмов, чья оценка выше порога входа в список.
+ */
+@Component
+public class LikeBurstTracker {
+
+    static final int SKETCH_DEPTH = 4;
+    static final int SKETCH_WIDTH = 1024;
+    public static final int MAX_HEAVY_HITTERS = 32;
+
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final Clock clock;
+
+    @Autowired
+    public LikeBurstTracker(@Value("${filmorate.like-bursts.bucket:PT1M}") Duration bucketLength,
+                            @Value("${filmorate.like-bursts.buckets:60}") int bucketCount) {
+        this(bucketLength, bucketCount, Clock.systemUTC());
+    }
+
+    LikeBurstTracker(Duration bucketLength, int bucketCount, Clock clock) {
+        this.bucketMillis = bucketLength.toMillis();
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        this.clock = clock;
+    }
+
+    public void record(Long filmId) {
+        Bucket bucket = bucket(clock.millis() / bucketMillis);
+        bucket.total.increment();
+        bucket.offer(filmId, bucket.sketch.add(filmId));
+    }
+
+    /**
+     * Лидеры последних bucketCount интервалов, начиная с текущего; пустые интервалы пропускаются.
+     */
+    public List<LikeBurst> recent(int bucketCount, int limit) {
+        long current = clock.millis() / bucketMillis;
+        List<LikeBurst> result = new ArrayList<>();
+        for (long number = current; number > current - Math.min(bucketCount, buckets.length()); number--) {
+            Bucket bucket = buckets.get(slot(number));
+            if (bucket == null || bucket.number != number) {
+                continue;
+            }
+            long total = bucket.total.sum();
+            List<LikeBurst.HeavyHitter> films = bucket.candidates.keySet().stream()
+                    .map(filmId -> new LikeBurst.HeavyHitter(filmId, bucket.sketch.estimate(filmId)))
+                    .sorted(Comparator.comparingLong(LikeBurst.HeavyHitter::getEstimatedLikes).reversed()
+                            .thenComparing(LikeBurst.HeavyHitter::getFilmId))
+                    .limit(limit)
+                    .toList();
+            long maxOverestimate = (long) Math.ceil(Math.E / SKETCH_WIDTH * total);
+            result.add(new LikeBurst(Instant.ofEpochMilli(number * bucketMillis), total, maxOverestimate, films));
+        }
+        return result;
+    }
+
+    private Bucket bucket(long number) {
+        int slot = slot(number);
+        while (true) {
+            Bucket current = buckets.get(slot);
+            // Поток с устаревшим временем не должен затирать более новый интервал
+            if (current != null && current.number >= number) {
+                return current;
+            }
+            Bucket fresh = new Bucket(number);
+            if (buckets.compareAndSet(slot, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int slot(long number) {
+        return (int) (number % buckets.length());
+    }
+
+    private static final class Bucket {
+        private static final Comparator<Candidate> ORDER = Comparator.comparingLong(Candidate::estimate)
+                .thenComparingLong(Candidate::filmId);
+
+        private final long number;
+        private final CountMinSketch sketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        private final LongAdder total = new LongAdder();
+        private final Map<Long, Long> candidates = new ConcurrentHashMap<>();
+        // Те же кандидаты по возрастанию оценки, меняются только под монитором интервала
+        private final NavigableSet<Candidate> byEstimate = new TreeSet<>(ORDER);
+        // Наименьшая оценка в заполненном списке; фильм с оценкой не выше нее отсекается без блокировки
+        private volatile long admission;
+
+        private Bucket(long number) {
+            this.number = number;
+        }
+
+        private void offer(Long filmId, long estimate) {
+            if (estimate <= admission && !candidates.containsKey(filmId)) {
+                return;
+            }
+            synchronized (this) {
+                Long previous = candidates.get(filmId);
+                if (previous != null) {
+                    if (previous >= estimate) {
+                        return;
+                    }
+                    byEstimate.remove(new Candidate(filmId, previous));
+                } else if (candidates.size() == MAX_HEAVY_HITTERS) {
+                    Candidate weakest = byEstimate.first();
+                    if (weakest.estimate() >= estimate) {
+                        return;
+                    }
+                    byEstimate.pollFirst();
+                    candidates.remove(weakest.filmId());
+                }
+                candidates.put(filmId, estimate);
+                byEstimate.add(new Candidate(filmId, estimate));
+                if (candidates.size() == MAX_HEAVY_HITTERS) {
+                    admission = byEstimate.first().estimate();
+                }
+            }
+        }
+    }
+
+    private record Candidate(long filmId, long estimate) {
+    }
+}
@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш готовых списков популярных фильмов по параметрам запроса (count, genreId, year).
+ * <p>
+ * Одновременные запросы с одним ключом ждут единственную загрузку. Запись старше refresh
+ * отдается как есть и перестраивается в фоне. Список хранит только ID фильмов, сами фильмы
+ * берутся из FilmCache при каждом чтении, поэтому число лайков и имена режиссеров в ответе актуальны.
+ * <p>
+ * Изменение лайков увеличивает поколение только тех ключей, чей порядок могло изменить: фильм
+ * сдвинулся относительно соседей, вошел в список или был последним в полном списке. Загруженный
+ * список помечен поколением на момент начала загрузки; список старше текущего поколения, в том
+ * числе результат загрузки или фонового обновления, начатых до изменения, при чтении загружается заново.
+ */
+@Slf4j
+@Component
+public class PopularFilmsCache implements PopularityIndex.Listener {
+
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final PopularityIndex popularityIndex;
+    private final FilmCache filmCache;
+    private final LoadingCache<Key, Loaded> cache;
+    // Поколения ключей, которые есть в кэше или загружаются; ключа нет - любой список считается устаревшим.
+    // Номера поколений берутся из общего счетчика и не повторяются даже после сброса кэша
+    private final Map<Key, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public PopularFilmsCache(PopularityIndex popularityIndex, FilmCache filmCache,
+                             @Value("${filmorate.popular-cache.max-size:1000}") long maxSize,
+                             @Value("${filmorate.popular-cache.refresh:PT5S}") Duration refresh) {
+        this.popularityIndex = popularityIndex;
+        this.filmCache = filmCache;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refresh)
+                .evictionListener((Key key, Loaded loaded, RemovalCause cause) ->
+                        generations.remove(key))
+                .build(this::load);
+        popularityIndex.addListener(this);
+    }
+
+    public List<Film> get(int count, Integer genreId, Integer year) {
+        Key key = new Key(count, genreId, year);
+        Loaded loaded = cache.get(key);
+        // Под постоянным потоком лайков число перезагрузок ограничено, последний список отдается как есть
+        for (int attempt = 1; attempt < MAX_LOAD_ATTEMPTS && !isCurrent(key, loaded); attempt++) {
+            cache.asMap().remove(key, loaded);
+            loaded = cache.get(key);
+        }
+        List<Film> films = new ArrayList<>();
+        for (Long filmId : loaded.filmIds()) {
+            filmCache.getById(filmId).ifPresent(films::add);
+        }
+        return films;
+    }
+
+    @Override
+    public void likesChanged(long filmId, int likes) {
+        generations.replaceAll((key, generation) -> {
+            Loaded loaded = cache.asMap().get(key);
+            boolean changed = loaded == null
+                    ? popularityIndex.matches(filmId, key.genreId(), key.year())
+                    : mayChange(key, loaded.filmIds(), filmId, likes);
+            return changed ? sequence.incrementAndGet() : generation;
+        });
+    }
+
+    @Override
+    public void filmChanged(long filmId) {
+        // Смена жанров или года может добавить фильм в любой список, такие записи редки
+        invalidateAll();
+    }
+
+    public void invalidateAll() {
+        generations.clear();
+        cache.invalidateAll();
+    }
+
+    private boolean isCurrent(Key key, Loaded loaded) {
+        Long generation = generations.get(key);
+        return generation != null && generation == loaded.generation();
+    }
+
+    // Порядок списка мог измениться, только если фильм подходит под фильтры ключа и сдвинулся относительно соседей
+    private boolean mayChange(Key key, List<Long> filmIds, long filmId, int likes) {
+        if (!popularityIndex.matches(filmId, key.genreId(), key.year())) {
+            return false;
+        }
+        int index = filmIds.indexOf(filmId);
+        if (index < 0) {
+            return filmIds.size() < key.count() || ranksBefore(filmId, likes, filmIds.getLast());
+        }
+        if (index > 0 && ranksBefore(filmId, likes, filmIds.get(index - 1))) {
+            return true;
+        }
+        if (index == filmIds.size() - 1) {
+            // Последний фильм полного списка мог потерять лайки и уступить место фильму за его пределами
+            return filmIds.size() == key.count();
+        }
+        return !ranksBefore(filmId, likes, filmIds.get(index + 1));
+    }
+
+    // Тот же порядок, что в PopularityIndex: лайки по убыванию, затем ID
+    private boolean ranksBefore(long filmId, int likes, long otherId) {
+        int otherLikes = popularityIndex.likes(otherId);
+        return likes > otherLikes || likes == otherLikes && filmId < otherId;
+    }
+
+    private Loaded load(Key key) {
+        log.debug("Загрузка популярных фильмов: {}", key);
+        long generation = generations.computeIfAbsent(key, k -> sequence.incrementAndGet());
+        return new Loaded(List.copyOf(popularityIndex.top(key.count(), key.genreId(), key.year())), generation);
+    }
+
+    private record Key(int count, Integer genreId, Integer year) {
+    }
+
+    private record Loaded(List<Long> filmIds, long generation) {
+    }
+}
@@ -0,0 +1,187 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongPredicate;
+
+/**
+ * Рейтинг фильмов по числу лайков в памяти: общий, по жанру, по году релиза и по паре жанр-год.
+ * Каждый рейтинг - упорядоченное множество (лайки по убыванию, затем ID), поэтому первые N
+ * фильмов для любого сочетания фильтров читаются без обращения к базе и без сортировки.
+ * <p>
+ * Записи сериализуются на мониторе индекса, чтение идет без блокировок. При изменении фильма
+ * новая позиция добавляется раньше, чем удаляется старая: читатель может увидеть фильм дважды
+ * (повтор отбрасывается), но не может его пропустить.
+ */
+@Slf4j
+@Component
+public class PopularityIndex implements CatalogIndex {
+
+    private static final Comparator<Ranked> ORDER = Comparator.comparingInt(Ranked::likes).reversed()
+            .thenComparingLong(Ranked::filmId);
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Ranked> all = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, NavigableSet<Ranked>> byGenre = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Ranked>> byYear = new ConcurrentHashMap<>();
+    private final Map<GenreYear, NavigableSet<Ranked>> byGenreYear = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void load(Film film) {
+        index(film, film.getRate());
+    }
+
+    @Override
+    public void finishLoad() {
+        log.info("Индекс популярности построен: {} фильмов", entries.size());
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * ID первых count фильмов по числу лайков с учетом необязательных фильтров.
+     */
+    public List<Long> top(int count, Integer genreId, Integer year) {
+        NavigableSet<Ranked> ranking;
+        if (genreId != null && year != null) {
+            ranking = byGenreYear.get(new GenreYear(genreId.longValue(), year));
+        } else if (genreId != null) {
+            ranking = byGenre.get(genreId.longValue());
+        } else if (year != null) {
+            ranking = byYear.get(year);
+        } else {
+            ranking = all;
+        }
+        if (ranking == null) {
+            return List.of();
+        }
+        return walk(ranking, count, filmId -> true);
+    }
+
+    /**
+     * ID первых count фильмов по числу лайков среди прошедших фильтр; в худшем случае обходит весь рейтинг.
+     */
+    public List<Long> top(int count, LongPredicate filter) {
+        return walk(all, count, filter);
+    }
+
+    public int likes(Long filmId) {
+        Entry entry = entries.get(filmId);
+        return entry == null ? 0 : entry.ranked().likes();
+    }
+
+    private List<Long> walk(NavigableSet<Ranked> ranking, int count, LongPredicate filter) {
+        List<Long> ids = new ArrayList<>(Math.min(count, 64));
+        Set<Long> seen = new HashSet<>();
+        for (Ranked ranked : ranking) {
+            if (ids.size() == count) {
+                break;
+            }
+            if (filter.test(ranked.filmId()) && seen.add(ranked.filmId())) {
+                ids.add(ranked.filmId());
+            }
+        }
+        return ids;
+    }
+
+    // Фильм есть в индексе и подходит под необязательные фильтры
+    public boolean matches(Long filmId, Integer genreId, Integer year) {
+        Entry entry = entries.get(filmId);
+        return entry != null
+                && (genreId == null || entry.genreIds().contains(genreId.longValue()))
+                && (year == null || entry.year() == year);
+    }
+
+    // Новый или измененный фильм: жанры и год берутся из фильма, накопленные лайки сохраняются
+    public synchronized void put(Film film) {
+        Entry current = entries.get(film.getId());
+        index(film, current == null ? 0 : current.ranked().likes());
+        listeners.forEach(listener -> listener.filmChanged(film.getId()));
+    }
+
+    public synchronized void adjustLikes(Long filmId, int delta) {
+        Entry current = entries.get(filmId);
+        if (current == null) {
+            return;
+        }
+        int likes = current.ranked().likes() + delta;
+        replace(current, new Entry(new Ranked(filmId, likes), current.genreIds(), current.year()));
+        listeners.forEach(listener -> listener.likesChanged(filmId, likes));
+    }
+
+    public synchronized void remove(Long filmId) {
+        Entry current = entries.remove(filmId);
+        if (current != null) {
+            rankings(current).forEach(ranking -> ranking.remove(current.ranked()));
+            listeners.forEach(listener -> listener.filmChanged(filmId));
+        }
+    }
+
+    private synchronized void index(Film film, int likes) {
+        Set<Long> genreIds = new LinkedHashSet<>();
+        if (film.getGenres() != null) {
+            film.getGenres().stream().map(Genre::getId).forEach(genreIds::add);
+        }
+        Entry updated = new Entry(new Ranked(film.getId(), likes), genreIds, film.getReleaseDate().getYear());
+        replace(entries.get(film.getId()), updated);
+    }
+
+    private void replace(Entry current, Entry updated) {
+        entries.put(updated.ranked().filmId(), updated);
+        rankings(updated).forEach(ranking -> ranking.add(updated.ranked()));
+        if (current != null) {
+            // При неизменных лайках позиция в рейтингах, куда фильм по-прежнему входит, та же самая
+            Set<NavigableSet<Ranked>> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+            if (current.ranked().equals(updated.ranked())) {
+                kept.addAll(rankings(updated));
+            }
+            for (NavigableSet<Ranked> ranking : rankings(current)) {
+                if (!kept.contains(ranking)) {
+                    ranking.remove(current.ranked());
+                }
+            }
+        }
+    }
+
+    private List<NavigableSet<Ranked>> rankings(Entry entry) {
+        List<NavigableSet<Ranked>> rankings = new ArrayList<>();
+        rankings.add(all);
+        rankings.add(byYear.computeIfAbsent(entry.year(), year -> new ConcurrentSkipListSet<>(ORDER)));
+        for (Long genreId : entry.genreIds()) {
+            rankings.add(byGenre.computeIfAbsent(genreId, id -> new ConcurrentSkipListSet<>(ORDER)));
+            rankings.add(byGenreYear.computeIfAbsent(new GenreYear(genreId, entry.year()),
+                    key -> new ConcurrentSkipListSet<>(ORDER)));
+        }
+        return rankings;
+    }
+
+    /**
+     * Получает изменения индекса синхронно, под монитором индекса.
+     */
+    public interface Listener {
+
+        void likesChanged(long filmId, int likes);
+
+        // Фильм добавлен, удален или сменил жанры или год
+        void filmChanged(long filmId);
+    }
+
+    private record Ranked(long filmId, int likes) {
+    }
+
+    private record Entry(Ranked ranked, Set<Long> genreIds, int year) {
+    }
+
+    private record GenreYear(long genreId, int year) {
+    }
+}
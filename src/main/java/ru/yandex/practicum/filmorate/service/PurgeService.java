@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dao.LikeDao;
+import ru.yandex.practicum.filmorate.dao.PurgeDao;
+import ru.yandex.practicum.filmorate.dto.PurgeStatus;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Фоновая очистка данных фильмов и пользователей, удаленных с async=true.
+ * Зависимые строки удаляются пакетами не больше batchSize, каждый пакет - отдельная транзакция,
+ * поэтому очистка популярного фильма не держит блокировки на все его лайки сразу.
+ */
+@Slf4j
+@Service
+public class PurgeService {
+
+    private static final int ENTITIES_PER_RUN = 100;
+
+    private final PurgeDao purgeDao;
+    private final LikeDao likeDao;
+    private final FilmCache filmCache;
+    private final PopularityIndex popularityIndex;
+    private final int batchSize;
+    private final AtomicLong purgedFilms = new AtomicLong();
+    private final AtomicLong purgedUsers = new AtomicLong();
+    private final AtomicLong purgedRows = new AtomicLong();
+    private volatile Instant lastRunAt;
+
+    public PurgeService(PurgeDao purgeDao, LikeDao likeDao, FilmCache filmCache, PopularityIndex popularityIndex,
+                        @Value("${filmorate.purge.batch-size:500}") int batchSize) {
+        this.purgeDao = purgeDao;
+        this.likeDao = likeDao;
+        this.filmCache = filmCache;
+        this.popularityIndex = popularityIndex;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.purge.interval:PT5S}")
+    public void purge() {
+        for (Long filmId : purgeDao.findDeletedFilmIds(ENTITIES_PER_RUN)) {
+            purgeEntity(filmId, purgeDao::purgeFilmBatch, purgedFilms);
+        }
+        for (Long userId : purgeDao.findDeletedUserIds(ENTITIES_PER_RUN)) {
+            // Снятые лайки меняют рейтинг фильмов в кэше и индексе популярности.
+            // При сбое часть лайков остается до следующего запуска, поэтому снятые определяем по разнице
+            List<Long> likedFilms = likeDao.getUserLikedFilmsId(userId);
+            purgeEntity(userId, purgeDao::purgeUserBatch, purgedUsers);
+            Set<Long> remaining = new HashSet<>(likeDao.getUserLikedFilmsId(userId));
+            List<Long> unliked = likedFilms.stream().filter(filmId -> !remaining.contains(filmId)).toList();
+            filmCache.invalidateAll(unliked);
+            unliked.forEach(filmId -> popularityIndex.adjustLikes(filmId, -1));
+        }
+        lastRunAt = Instant.now();
+    }
+
+    public PurgeStatus getStatus() {
+        return new PurgeStatus(purgeDao.countDeletedFilms(), purgeDao.countDeletedUsers(),
+                purgedFilms.get(), purgedUsers.get(), purgedRows.get(), lastRunAt);
+    }
+
+    private void purgeEntity(Long id, BiFunction<Long, Integer, Integer> purgeBatch, AtomicLong purgedEntities) {
+        try {
+            int deleted;
+            do {
+                deleted = purgeBatch.apply(id, batchSize);
+                purgedRows.addAndGet(deleted);
+            } while (deleted > 0);
+            purgedEntities.incrementAndGet();
+        } catch (RuntimeException e) {
+            // Сущность останется помеченной и будет обработана при следующем запуске
+            log.warn("Не удалось очистить данные сущности с ID {}", id, e);
+        }
+    }
+}
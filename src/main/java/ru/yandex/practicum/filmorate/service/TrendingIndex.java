@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.EventDao;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.yandex.practicum.filmorate.util.ActionsId.ADD;
+
+/**
+ * Рейтинг «в тренде»: для каждого окна хранит по фильму экспоненциально затухающую сумму
+ * лайков (+1) и снятых лайков (-1). Вес события уменьшается вдвое за halfLife окна,
+ * поэтому счет обновляется за O(1): старое значение затухает до момента нового события
+ * и к нему прибавляется вклад события.
+ * <p>
+ * При старте счет восстанавливается проигрыванием событий лайков из таблицы events за
+ * REPLAY_HALF_LIVES периодов самого длинного окна: вклад более старого лайка меньше MIN_SCORE.
+ * Повторный лайк и снятие несуществующего лайка пропускаются так же, как в FilmService; снятие
+ * лайка, поставленного до этого горизонта, тоже пропускается. Фильмы с почти нулевым или
+ * отрицательным счетом из рейтинга выбрасываются.
+ */
+@Slf4j
+@Component
+public class TrendingIndex implements SmartInitializingSingleton {
+
+    private static final double MIN_SCORE = 1e-3;
+    // 2^-10 < MIN_SCORE
+    private static final int REPLAY_HALF_LIVES = 10;
+
+    private final EventDao eventDao;
+    private final PopularityIndex popularityIndex;
+    private final Map<TrendingWindow, Map<Long, Score>> scores = new EnumMap<>(TrendingWindow.class);
+
+    public TrendingIndex(EventDao eventDao, PopularityIndex popularityIndex) {
+        this.eventDao = eventDao;
+        this.popularityIndex = popularityIndex;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            scores.put(window, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Duration longest = Arrays.stream(TrendingWindow.values())
+                .map(TrendingWindow::getHalfLife)
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+        Instant since = Instant.now().minus(longest.multipliedBy(REPLAY_HALF_LIVES));
+        Set<Like> liked = new HashSet<>();
+        int[] replayed = new int[1];
+        eventDao.forEachLikeEvent(since, event -> {
+            Like like = new Like(event.getUserId(), event.getEntityId());
+            boolean add = ADD.getId().equals(event.getOperationId());
+            if (add ? liked.add(like) : liked.remove(like)) {
+                record(event.getEntityId(), add ? 1 : -1, event.getTimestamp());
+                replayed[0]++;
+            }
+        });
+        log.info("Рейтинг «в тренде» восстановлен по {} событиям лайков с {}", replayed[0], since);
+    }
+
+    public void record(Long filmId, int delta, Instant at) {
+        for (TrendingWindow window : TrendingWindow.values()) {
+            scores.get(window).compute(filmId, (id, score) -> score == null
+                    ? new Score(delta, at)
+                    : score.plus(delta, at, window.getHalfLife()));
+        }
+    }
+
+    public void remove(Long filmId) {
+        scores.values().forEach(windowScores -> windowScores.remove(filmId));
+    }
+
+    /**
+     * ID первых count фильмов по счету на текущий момент, с необязательным фильтром по жанру.
+     */
+    public List<Long> top(TrendingWindow window, int count, Integer genreId) {
+        Instant now = Instant.now();
+        Duration halfLife = window.getHalfLife();
+        Comparator<Map.Entry<Long, Double>> order = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+        // Куча с минимумом в корне хранит только count лучших фильмов
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(order);
+        Map<Long, Score> windowScores = scores.get(window);
+        for (Map.Entry<Long, Score> entry : windowScores.entrySet()) {
+            double value = entry.getValue().valueAt(now, halfLife);
+            if (value < MIN_SCORE) {
+                windowScores.remove(entry.getKey(), entry.getValue());
+                continue;
+            }
+            if (!popularityIndex.matches(entry.getKey(), genreId, null)) {
+                continue;
+            }
+            best.add(Map.entry(entry.getKey(), value));
+            if (best.size() > count) {
+                best.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ids.add(best.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private record Like(long userId, long filmId) {
+    }
+
+    private record Score(double value, Instant at) {
+
+        double valueAt(Instant time, Duration halfLife) {
+            double halfLives = (double) Duration.between(at, time).toMillis() / halfLife.toMillis();
+            return value * Math.pow(2, -halfLives);
+        }
+
+        // События могут прийти не по порядку, счет хранится на момент самого позднего из них
+        Score plus(int delta, Instant eventAt, Duration halfLife) {
+            Instant latest = eventAt.isAfter(at) ? eventAt : at;
+            double contribution = new Score(delta, eventAt).valueAt(latest, halfLife);
+            return new Score(valueAt(latest, halfLife) + contribution, latest);
+        }
+    }
+}
@@ -5,7 +5,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dao.FilmDao;
-import ru.yandex.practicum.filmorate.dao.GenreDao;
 import ru.yandex.practicum.filmorate.dao.LikeDao;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
@@ -21,8 +20,9 @@ public class UserService {
     private final UserDao userDao;
     private final LikeDao likeDao;
     private final FilmDao filmDao;
-    private final GenreDao genreDao;
-    private final DirectorService directorService;
+    private final FilmService filmService;
+    private final FilmCache filmCache;
+    private final PopularityIndex popularityIndex;
 
     public List<Film> getRecommendations(Long userId) {
         List<Long> similarUsers = likeDao.findSimilarUsers(userId);
@@ -32,22 +32,28 @@ public class UserService {
         }
 
         Long similarUserId = similarUsers.getFirst();
-        List<Film> films = filmDao.getFilmsLikedByUserButNotAnother(similarUserId, userId);
-        films.forEach(film -> {
-            film.setGenres(genreDao.getGenresByFilmId(film.getId()));
-            film.setDirectors(directorService.getDirectorsForFilm(film.getId()));
-        });
-        return films;
+        return filmService.loadGenresAndDirectors(
+                filmDao.getFilmsLikedByUserButNotAnother(similarUserId, userId));
     }
 
     public void delete(Long userId) {
         if (userDao.getById(userId).isEmpty()) {
             throw new NotFoundException("Пользователь с ID " + userId + " не найден");
         }
+        // Лайки удалятся вместе с пользователем, поэтому фильмы для сброса кэша выбираем заранее
+        List<Long> likedFilms = likeDao.getUserLikedFilmsId(userId);
         userDao.delete(userId);
+        filmCache.invalidateAll(likedFilms);
+        likedFilms.forEach(filmId -> popularityIndex.adjustLikes(filmId, -1));
         log.info("User deleted id={}", userId);
     }
 
+    // Пользователь сразу скрывается от чтения, зависимые данные удаляет PurgeService
+    public void deleteAsync(Long userId) {
+        userDao.markDeleted(userId);
+        log.info("User marked for purge id={}", userId);
+    }
+
     public User create(@Valid User user) {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
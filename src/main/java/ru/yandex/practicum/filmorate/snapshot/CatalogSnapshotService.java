@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.CatalogDao;
+import ru.yandex.practicum.filmorate.dao.FilmDao;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Периодически сохраняет каталог фильмов в бинарный снимок и прогревает им кэш фильмов при старте.
+ * Загрузку вызывает CatalogIndexLoader, чтобы те же фильмы сразу попали в индексы каталога.
+ * <p>
+ * При загрузке снимок сверяется с базой: эпоха каталога должна совпадать, а в кэш попадают только
+ * фильмы, версия которых в базе не изменилась. Версии читаются до выгрузки фильмов, поэтому
+ * при параллельной записи версия в снимке может оказаться только старше содержимого, и такой
+ * фильм при загрузке будет пропущен.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.snapshot.enabled", havingValue = "true")
+public class CatalogSnapshotService {
+
+    private final FilmDao filmDao;
+    private final CatalogDao catalogDao;
+    private final FilmCache filmCache;
+    private final Path path;
+
+    public CatalogSnapshotService(FilmDao filmDao, CatalogDao catalogDao, FilmCache filmCache,
+                                  @Value("${filmorate.snapshot.path}") Path path) {
+        this.filmDao = filmDao;
+        this.catalogDao = catalogDao;
+        this.filmCache = filmCache;
+        this.path = path;
+    }
+
+    /**
+     * Загружает в кэш актуальные фильмы снимка и передает каждый из них consumer.
+     * Возвращает ID загруженных фильмов; при ошибке чтения - тех, что успели загрузиться до нее.
+     */
+    public Set<Long> load(Consumer<Film> consumer) {
+        Set<Long> loaded = new HashSet<>();
+        if (!Files.exists(path)) {
+            log.info("Снимок каталога {} не найден, прогрев кэша пропущен", path);
+            return loaded;
+        }
+        long started = System.nanoTime();
+        try (InputStream in = Files.newInputStream(path); SnapshotReader reader = new SnapshotReader(in)) {
+            String epoch = catalogDao.getEpoch();
+            if (!epoch.equals(reader.getEpoch())) {
+                log.info("Снимок каталога относится к другой эпохе базы ({}), прогрев кэша пропущен",
+                        reader.getEpoch());
+                return loaded;
+            }
+            Map<Long, Long> versions = filmDao.getVersions();
+            int skipped = 0;
+            for (SnapshotEntry entry = reader.next(); entry != null; entry = reader.next()) {
+                Long current = versions.get(entry.film().getId());
+                if (current != null && current == entry.version()) {
+                    entry.film().setVersion(entry.version());
+                    filmCache.put(entry.film());
+                    consumer.accept(entry.film());
+                    loaded.add(entry.film().getId());
+                } else {
+                    skipped++;
+                }
+            }
+            log.info("Кэш прогрет из снимка: загружено {}, устарело {}, за {} мс",
+                    loaded.size(), skipped, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            // Снимок только ускоряет старт; при любой ошибке кэш наполнится обычными запросами
+            log.warn("Не удалось загрузить снимок каталога {}", path, e);
+        }
+        return loaded;
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.snapshot.interval}", fixedDelayString = "${filmorate.snapshot.interval}")
+    public void scheduledWrite() {
+        write();
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        write();
+    }
+
+    public synchronized void write() {
+        long started = System.nanoTime();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            String epoch = catalogDao.getEpoch();
+            Map<Long, Long> versions = filmDao.getVersions();
+            int[] written = {0};
+            try (OutputStream out = Files.newOutputStream(temp); SnapshotWriter writer = new SnapshotWriter(out, epoch)) {
+                filmDao.streamAll(film -> {
+                    Long version = versions.get(film.getId());
+                    // Фильм создан после чтения версий - попадет в следующий снимок
+                    if (version == null) {
+                        return;
+                    }
+                    try {
+                        writer.write(film, version);
+                        written[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Снимок каталога записан: {} фильмов, {} байт, за {} мс",
+                    written[0], Files.size(path), (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось записать снимок каталога {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+/**
+ * Фильм из снимка вместе с версией строки films на момент записи.
+ */
+public record SnapshotEntry(Film film, long version) {
+}
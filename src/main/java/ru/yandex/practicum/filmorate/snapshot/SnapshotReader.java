@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Чтение снимка, записанного {@link SnapshotWriter}. Экземпляры рейтингов, жанров и режиссеров
+ * с одинаковыми ID и названием общие для всех фильмов снимка.
+ */
+public class SnapshotReader implements Closeable {
+
+    private final DataInputStream in;
+    private final String epoch;
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<Long, Mpa> mpas = new HashMap<>();
+    private final Map<Long, Genre> genres = new HashMap<>();
+    private final Map<Long, Director> directors = new HashMap<>();
+
+    public SnapshotReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        if (this.in.readInt() != SnapshotWriter.MAGIC) {
+            throw new IOException("Файл не является снимком каталога");
+        }
+        long formatVersion = readVarLong();
+        if (formatVersion != SnapshotWriter.FORMAT_VERSION) {
+            throw new IOException("Неподдерживаемая версия формата снимка: " + formatVersion);
+        }
+        this.epoch = readString();
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Следующий фильм снимка или null, если снимок прочитан полностью.
+     */
+    public SnapshotEntry next() throws IOException {
+        int marker = in.readUnsignedByte();
+        if (marker == SnapshotWriter.END_OF_SNAPSHOT) {
+            return null;
+        }
+        if (marker != SnapshotWriter.FILM_RECORD) {
+            throw new IOException("Поврежденный снимок: неизвестный маркер записи " + marker);
+        }
+        Film film = new Film();
+        film.setId(readVarLong());
+        long version = readVarLong();
+        film.setName(readString());
+        film.setDescription(readString());
+        film.setReleaseDate(LocalDate.ofEpochDay(unzigzag(readVarLong())));
+        film.setDuration((int) readVarLong());
+        film.setRate((int) readVarLong());
+        long mpaId = readVarLong();
+        String mpaName = readDictionaryString();
+        film.setMpa(shared(mpas, mpaId, mpaName, Mpa::getName, () -> new Mpa(mpaId, mpaName)));
+
+        int genreCount = (int) readVarLong();
+        List<Genre> filmGenres = new ArrayList<>(genreCount);
+        for (int i = 0; i < genreCount; i++) {
+            long genreId = readVarLong();
+            String genreName = readDictionaryString();
+            filmGenres.add(shared(genres, genreId, genreName, Genre::getName, () -> new Genre(genreId, genreName)));
+        }
+        film.setGenres(filmGenres);
+
+        int directorCount = (int) readVarLong();
+        List<Director> filmDirectors = new ArrayList<>(directorCount);
+        for (int i = 0; i < directorCount; i++) {
+            long directorId = readVarLong();
+            String directorName = readDictionaryString();
+            filmDirectors.add(shared(directors, directorId, directorName, Director::getName, () -> {
+                Director director = new Director();
+                director.setId(directorId);
+                director.setName(directorName);
+                return director;
+            }));
+        }
+        film.setDirectors(filmDirectors);
+        return new SnapshotEntry(film, version);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static <T> T shared(Map<Long, T> instances, long id, String name,
+                                Function<T, String> nameOf, Supplier<T> factory) {
+        T current = instances.get(id);
+        if (current == null || !Objects.equals(nameOf.apply(current), name)) {
+            current = factory.get();
+            instances.put(id, current);
+        }
+        return current;
+    }
+
+    private String readDictionaryString() throws IOException {
+        int reference = (int) readVarLong();
+        if (reference > 0) {
+            return dictionary.get(reference - 1);
+        }
+        String value = readString();
+        dictionary.add(value);
+        return value;
+    }
+
+    private String readString() throws IOException {
+        long length = readVarLong();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Поврежденный снимок: слишком длинный varint");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
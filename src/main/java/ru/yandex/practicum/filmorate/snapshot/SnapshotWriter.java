@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Потоковая запись снимка каталога.
+ * <p>
+ * Формат: заголовок (магическое число, версия формата, эпоха каталога), затем записи фильмов,
+ * каждая с маркером {@link #FILM_RECORD}, в конце маркер {@link #END_OF_SNAPSHOT}.
+ * Целые числа пишутся как varint, дата релиза - как zigzag varint от epochDay.
+ * Названия рейтингов, жанров и режиссеров кодируются словарем, который строится по ходу записи:
+ * первое вхождение строки пишется целиком, последующие - номером в словаре.
+ */
+public class SnapshotWriter implements Closeable {
+
+    static final int MAGIC = 0x46534E50; // "FSNP"
+    static final int FORMAT_VERSION = 2;
+    static final int FILM_RECORD = 1;
+    static final int END_OF_SNAPSHOT = 0;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    public SnapshotWriter(OutputStream out, String epoch) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        writeVarLong(FORMAT_VERSION);
+        writeString(epoch);
+    }
+
+    public void write(Film film, long version) throws IOException {
+        out.writeByte(FILM_RECORD);
+        writeVarLong(film.getId());
+        writeVarLong(version);
+        writeString(film.getName());
+        writeString(film.getDescription());
+        writeVarLong(zigzag(film.getReleaseDate().toEpochDay()));
+        writeVarLong(film.getDuration());
+        writeVarLong(film.getRate());
+        writeVarLong(film.getMpa().getId());
+        writeDictionaryString(film.getMpa().getName());
+
+        List<Genre> genres = film.getGenres();
+        writeVarLong(genres.size());
+        for (Genre genre : genres) {
+            writeVarLong(genre.getId());
+            writeDictionaryString(genre.getName());
+        }
+
+        List<Director> directors = film.getDirectors();
+        writeVarLong(directors.size());
+        for (Director director : directors) {
+            writeVarLong(director.getId());
+            writeDictionaryString(director.getName());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.writeByte(END_OF_SNAPSHOT);
+        out.close();
+    }
+
+    private void writeDictionaryString(String value) throws IOException {
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            writeVarLong(index + 1);
+            return;
+        }
+        // 0 - новая строка, ей присваивается следующий номер словаря
+        writeVarLong(0);
+        writeString(value);
+        dictionary.put(value, dictionary.size());
+    }
+
+    // Длина + 1 в байтах UTF-8; 0 означает null
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -13,6 +13,9 @@ DROP TABLE IF EXISTS genres CASCADE;
 DROP TABLE IF EXISTS mpa CASCADE;
 DROP TABLE IF EXISTS event_types CASCADE;
 DROP TABLE IF EXISTS operations CASCADE;
+DROP TABLE IF EXISTS catalog_meta CASCADE;
+DROP TABLE IF EXISTS film_changes CASCADE;
+DROP TABLE IF EXISTS film_changes_state CASCADE;
 
 
 CREATE TABLE IF NOT EXISTS mpa (
@@ -30,7 +33,8 @@ CREATE TABLE IF NOT EXISTS users (
     email VARCHAR(255) NOT NULL,
     login VARCHAR(100) NOT NULL,
     name VARCHAR(255),
-    birthday DATE
+    birthday DATE,
+    deleted_at TIMESTAMP
 );
 
 CREATE TABLE IF NOT EXISTS films (
@@ -39,9 +43,16 @@ CREATE TABLE IF NOT EXISTS films (
     description VARCHAR(2000),
     release_date DATE NOT NULL,
     duration INTEGER NOT NULL,
-    mpa_id BIGINT REFERENCES mpa(id)
+    mpa_id BIGINT REFERENCES mpa(id),
+    version BIGINT NOT NULL DEFAULT 0,
+    -- Счетчик лайков, поддерживается LikeDao и путями удаления пользователей вместо агрегации по likes
+    like_count INTEGER NOT NULL DEFAULT 0,
+    -- Метка удаления: строка скрыта от чтения и ждет фоновой очистки зависимых данных
+    deleted_at TIMESTAMP
 );
 
+CREATE INDEX IF NOT EXISTS idx_films_like_count ON films (like_count DESC);
+
 CREATE TABLE IF NOT EXISTS directors (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(255) NOT NULL
@@ -129,4 +140,31 @@ CREATE TABLE IF NOT EXISTS events (
     event_type_id BIGINT REFERENCES event_types(id) ON DELETE CASCADE,
     operation_id BIGINT REFERENCES operations(id) ON DELETE CASCADE,
     event_time TIMESTAMP
-);
\ No newline at end of file
+);
+CREATE INDEX IF NOT EXISTS idx_events_type_time ON events (event_type_id, event_time);
+
+-- Журнал изменений фильмов для инкрементальной синхронизации; без внешнего ключа, чтобы удаление фильма оставалось в журнале
+CREATE TABLE IF NOT EXISTS film_changes (
+    seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    film_id BIGINT NOT NULL,
+    change_type VARCHAR(10) NOT NULL,
+    changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Состояние журнала: последний номер, удаленный по сроку хранения
+CREATE TABLE IF NOT EXISTS film_changes_state (
+    id INT PRIMARY KEY,
+    pruned_seq BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO film_changes_state (id)
+SELECT 1 WHERE NOT EXISTS (SELECT 1 FROM film_changes_state);
+
+-- Эпоха каталога меняется при каждом пересоздании схемы; снимок каталога с другой эпохой не загружается
+CREATE TABLE IF NOT EXISTS catalog_meta (
+    id INT PRIMARY KEY,
+    epoch UUID NOT NULL
+);
+
+INSERT INTO catalog_meta (id, epoch)
+SELECT 1, RANDOM_UUID() WHERE NOT EXISTS (SELECT 1 FROM catalog_meta);
@@ -8,7 +8,9 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.dto.DirectorRank;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.service.DirectorLeaderboard;
 import ru.yandex.practicum.filmorate.service.DirectorService;
 
 import java.util.List;
@@ -113,6 +115,25 @@ class DirectorControllerTest {
                 .andExpect(jsonPath("$.length()").value(0));
     }
 
+    @Test
+    void getTopDirectors_success() throws Exception {
+        when(directorService.getTopDirectors(DirectorLeaderboard.SortBy.FILMS, 5))
+                .thenReturn(List.of(new DirectorRank(1L, "Test Director", 12, 3)));
+
+        mockMvc.perform(get("/directors/top?sortBy=films&count=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Test Director"))
+                .andExpect(jsonPath("$[0].totalLikes").value(12))
+                .andExpect(jsonPath("$[0].filmCount").value(3));
+    }
+
+    @Test
+    void getTopDirectors_withUnknownSort_badRequest() throws Exception {
+        mockMvc.perform(get("/directors/top?sortBy=rating"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getDirectorById_success() throws Exception {
         when(directorService.getById(1L)).thenReturn(director);
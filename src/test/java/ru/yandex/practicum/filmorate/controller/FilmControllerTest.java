@@ -12,13 +12,23 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dto.FacetedFilms;
+import ru.yandex.practicum.filmorate.dto.FilmChangesHead;
+import ru.yandex.practicum.filmorate.dto.FilmFacets;
+import ru.yandex.practicum.filmorate.dto.FilmPage;
+import ru.yandex.practicum.filmorate.dto.FilmsByIdsResponse;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -91,13 +101,141 @@ class FilmControllerTest {
         film2.setName("Film 2");
         film2.setMpa(new Mpa(2L, "PG"));
 
-        when(filmService.getAll()).thenReturn(List.of(film1, film2));
+        when(filmService.getAll(FilmField.ALL)).thenReturn(List.of(film1, film2));
 
-        mockMvc.perform(get("/films"))
+        mockMvc.perform(get("/films?all=true"))
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(List.of(film1, film2))));
     }
 
+    @Test
+    void getFilms_withoutAll_returnsFirstPage() throws Exception {
+        Film film1 = new Film();
+        film1.setId(1L);
+        film1.setName("Film 1");
+        film1.setMpa(new Mpa(1L, "G"));
+
+        when(filmService.getPage(null, 100, FilmField.ALL)).thenReturn(new FilmPage(List.of(film1), null));
+
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.films[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(filmService, never()).getAll(any());
+    }
+
+    @Test
+    void getFilms_withAllAndLimit_badRequest() throws Exception {
+        mockMvc.perform(get("/films?all=true&limit=10"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(filmService);
+    }
+
+    @Test
+    void getFilms_withFields_returnsOnlyRequestedFields() throws Exception {
+        Film film = new Film();
+        film.setId(1L);
+        film.setName("Film 1");
+        film.setDescription("Description");
+        film.setMpa(new Mpa(1L, "G"));
+
+        when(filmService.getAll(EnumSet.of(FilmField.ID, FilmField.NAME))).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films?all=true&fields=name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].name").value("Film 1"))
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].mpa").doesNotExist());
+    }
+
+    @Test
+    void getFilms_withUnknownField_badRequest() throws Exception {
+        mockMvc.perform(get("/films?fields=budget"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getTrendingFilms_withUnknownWindow_badRequest() throws Exception {
+        mockMvc.perform(get("/films/trending?window=2h"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getFilmsPage_success() throws Exception {
+        Film film1 = new Film();
+        film1.setId(1L);
+        film1.setName("Film 1");
+        film1.setMpa(new Mpa(1L, "G"));
+
+        when(filmService.getPage(null, 1, FilmField.ALL)).thenReturn(new FilmPage(List.of(film1), 1L));
+
+        mockMvc.perform(get("/films?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.films.length()").value(1))
+                .andExpect(jsonPath("$.films[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").value(1L));
+    }
+
+    @Test
+    void getFilmsPage_withFields_returnsOnlyRequestedFields() throws Exception {
+        Film film1 = new Film();
+        film1.setId(1L);
+        film1.setName("Film 1");
+        film1.setDescription("Description");
+        film1.setMpa(new Mpa(1L, "G"));
+
+        when(filmService.getPage(null, 1, EnumSet.of(FilmField.ID, FilmField.NAME)))
+                .thenReturn(new FilmPage(List.of(film1), 1L));
+
+        mockMvc.perform(get("/films?limit=1&fields=name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.films[0].name").value("Film 1"))
+                .andExpect(jsonPath("$.films[0].description").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(1L));
+    }
+
+    @Test
+    void getFilms_withIdsAndLimit_badRequest() throws Exception {
+        mockMvc.perform(get("/films?ids=1,5&limit=1"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(filmService);
+    }
+
+    @Test
+    void getChangesHead_returnsSettledSeq() throws Exception {
+        when(filmService.getChangesHead()).thenReturn(new FilmChangesHead(42L));
+
+        mockMvc.perform(get("/films/changes/head"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.seq").value(42L));
+    }
+
+    @Test
+    void getFilmsPage_invalidLimit() throws Exception {
+        mockMvc.perform(get("/films?limit=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getFilmsByIds_success() throws Exception {
+        Film film1 = new Film();
+        film1.setId(1L);
+        film1.setName("Film 1");
+        film1.setMpa(new Mpa(1L, "G"));
+
+        when(filmService.getByIds(List.of(1L, 5L))).thenReturn(new FilmsByIdsResponse(List.of(film1), List.of(5L)));
+
+        mockMvc.perform(get("/films?ids=1,5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.films.length()").value(1))
+                .andExpect(jsonPath("$.films[0].id").value(1L))
+                .andExpect(jsonPath("$.missingIds[0]").value(5L));
+    }
+
     @Test
     void createFilm_withDirectors_success() throws Exception {
         Film filmWithDirectors = new Film();
@@ -248,6 +386,44 @@ class FilmControllerTest {
                 .andExpect(jsonPath("$.directors[0].name").value("Test Director"));
     }
 
+    @Test
+    void getFilmById_returnsEtag() throws Exception {
+        Film film = new Film();
+        film.setId(1L);
+        film.setName("Film 1");
+        film.setMpa(new Mpa(1L, "G"));
+        film.setVersion(3L);
+
+        when(filmService.getById(1L)).thenReturn(film);
+
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""))
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void getFilmById_matchingEtag_notModified() throws Exception {
+        Film film = new Film();
+        film.setId(1L);
+        film.setVersion(3L);
+        when(filmService.getById(1L)).thenReturn(film);
+
+        mockMvc.perform(get("/films/1").header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void deleteFilm_async_accepted() throws Exception {
+        mockMvc.perform(delete("/films/1?async=true"))
+                .andExpect(status().isAccepted());
+
+        verify(filmService).deleteAsync(1L);
+        verify(filmService, never()).delete(1L);
+    }
+
     @Test
     void addLikeToFilm_success() throws Exception {
         doNothing().when(filmService).addLike(1L, 1L);
@@ -272,6 +448,42 @@ class FilmControllerTest {
                 .andExpect(jsonPath("$[0].id").value(1L));
     }
 
+    @Test
+    void getPopularFilms_withFields_filtersSerializedFilms() throws Exception {
+        Film popularFilm = new Film();
+        popularFilm.setId(1L);
+        popularFilm.setName("Popular Film");
+        popularFilm.setDescription("Description");
+        popularFilm.setMpa(new Mpa(1L, "G"));
+        when(filmService.getPopularFilms(5, null, null)).thenReturn(List.of(popularFilm));
+
+        mockMvc.perform(get("/films/popular?count=5&fields=name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].name").value("Popular Film"))
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].mpa").doesNotExist());
+    }
+
+    @Test
+    void getPopularFilms_withFacets_wrapsFilmsAndCounts() throws Exception {
+        Film popularFilm = new Film();
+        popularFilm.setId(1L);
+        popularFilm.setName("Popular Film");
+        popularFilm.setMpa(new Mpa(1L, "G"));
+        FilmFilter filter = new FilmFilter(Set.of(2L), false, null, null, Set.of(), Set.of());
+        FilmFacets facets = new FilmFacets(1, Map.of(2L, 1), Map.of(1L, 1), Map.of(2000, 1));
+        when(filmService.getPopularFilmsWithFacets(5, filter))
+                .thenReturn(new FacetedFilms(List.of(popularFilm), facets));
+
+        mockMvc.perform(get("/films/popular?count=5&genreId=2&facets=true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.films[0].id").value(1L))
+                .andExpect(jsonPath("$.facets.total").value(1))
+                .andExpect(jsonPath("$.facets.genres['2']").value(1))
+                .andExpect(jsonPath("$.facets.decades['2000']").value(1));
+    }
+
     @Test
     void getPopularFilms_withGenreFilter_success() throws Exception {
         Film comedyFilm = new Film();
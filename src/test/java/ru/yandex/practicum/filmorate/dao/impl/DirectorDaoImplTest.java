@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.dao.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.Director;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@Import({DirectorDaoImpl.class, ReferenceRegistry.class})
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:test-data.sql")
+class DirectorDaoImplTest {
+    @Autowired
+    private DirectorDaoImpl directorDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testGetDirectorsByFilmIds() {
+        Director nolan = directorDao.create(director("Кристофер Нолан"));
+        Director jackson = directorDao.create(director("Питер Джексон"));
+        link(100L, jackson);
+        link(100L, nolan);
+        link(300L, nolan);
+
+        Map<Long, List<Director>> directors = directorDao.getDirectorsByFilmIds(List.of(100L, 200L, 300L, 999L));
+
+        assertEquals(List.of(nolan.getId(), jackson.getId()),
+                directors.get(100L).stream().map(Director::getId).toList());
+        assertEquals("Кристофер Нолан", directors.get(300L).get(0).getName());
+        assertFalse(directors.containsKey(200L));
+        assertFalse(directors.containsKey(999L));
+        // Общий режиссер не дублируется между фильмами
+        assertSame(directors.get(100L).get(0), directors.get(300L).get(0));
+    }
+
+    @Test
+    void testGetDirectorsByEmptyFilmIds() {
+        assertTrue(directorDao.getDirectorsByFilmIds(List.of()).isEmpty());
+    }
+
+    private void link(Long filmId, Director director) {
+        jdbcTemplate.update("INSERT INTO film_directors (film_id, director_id) VALUES (?, ?)", filmId, director.getId());
+    }
+
+    private static Director director(String name) {
+        Director director = new Director();
+        director.setName(name);
+        return director;
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.dao.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.dto.EventDto;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.service.mapper.EventRowMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.util.ActionsId.*;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@Import({EventDaoImpl.class, EventRowMapper.class})
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:test-data.sql")
+class EventDaoImplTest {
+    @Autowired
+    private EventDaoImpl eventDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testFindByUserId() {
+        eventDao.saveEvent(new EventDto(1000L, 100L, LIKE.getId(), ADD.getId(), Instant.now()));
+
+        assertEquals(EventType.LIKE, eventDao.findByUserId(1000L).getFirst().getEventType());
+        assertTrue(eventDao.findByUserId(1001L).isEmpty());
+    }
+
+    @Test
+    void testFeedOfDeletedUserIsNotFound() {
+        eventDao.saveEvent(new EventDto(1000L, 100L, LIKE.getId(), ADD.getId(), Instant.now()));
+        jdbcTemplate.update("UPDATE users SET deleted_at = CURRENT_TIMESTAMP WHERE id = 1000");
+
+        assertThrows(NotFoundException.class, () -> eventDao.findByUserId(1000L));
+        assertThrows(NotFoundException.class, () -> eventDao.findByUserId(999L));
+    }
+
+    @Test
+    void testForEachLikeEventSkipsEventsBeforeSince() {
+        Instant now = Instant.now();
+        eventDao.saveEvent(new EventDto(1000L, 100L, LIKE.getId(), ADD.getId(), now.minus(Duration.ofDays(100))));
+        eventDao.saveEvent(new EventDto(1001L, 200L, LIKE.getId(), ADD.getId(), now.minus(Duration.ofDays(1))));
+        eventDao.saveEvent(new EventDto(1000L, 200L, LIKE.getId(), REMOVE.getId(), now));
+        List<EventDto> events = new ArrayList<>();
+
+        eventDao.forEachLikeEvent(now.minus(Duration.ofDays(70)), events::add);
+
+        assertEquals(List.of(200L, 200L), events.stream().map(EventDto::getEntityId).toList());
+        assertEquals(List.of(ADD.getId(), REMOVE.getId()), events.stream().map(EventDto::getOperationId).toList());
+    }
+}
@@ -10,22 +10,33 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import ru.yandex.practicum.filmorate.dao.FilmDao;
 import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.dao.DirectorDao;
+import ru.yandex.practicum.filmorate.dao.FilmChangeDao;
+import ru.yandex.practicum.filmorate.dao.LikeDao;
 import ru.yandex.practicum.filmorate.dao.MpaDao;
+import ru.yandex.practicum.filmorate.dao.PurgeDao;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChange;
+import ru.yandex.practicum.filmorate.model.FilmChangeType;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @JdbcTest
 @AutoConfigureTestDatabase
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
-@Import({FilmDaoImpl.class, GenreDaoImpl.class, MpaDaoImpl.class, FilmDirectorDaoImpl.class, DirectorDaoImpl.class, LikeDaoImpl.class})
+@Import({FilmDaoImpl.class, GenreDaoImpl.class, MpaDaoImpl.class, FilmDirectorDaoImpl.class, DirectorDaoImpl.class, LikeDaoImpl.class,
+        ReferenceRegistry.class, PurgeDaoImpl.class, FilmChangeDaoImpl.class})
 @ActiveProfiles("test")
 @Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:test-data.sql")
 class FilmDaoImplTest {
@@ -36,6 +47,18 @@ class FilmDaoImplTest {
     @Autowired
     private MpaDao mpaDao;
 
+    @Autowired
+    private DirectorDao directorDao;
+
+    @Autowired
+    private LikeDao likeDao;
+
+    @Autowired
+    private PurgeDao purgeDao;
+
+    @Autowired
+    private FilmChangeDao filmChangeDao;
+
     private Film testFilm;
 
     @BeforeEach
@@ -67,6 +90,87 @@ class FilmDaoImplTest {
         assertEquals("Updated Film", updated.getName());
     }
 
+    @Test
+    void testCreateAllInsertsFilmsAndLinks() {
+        Film second = new Film();
+        second.setName("Second Film");
+        second.setDescription("Second Description");
+        second.setReleaseDate(LocalDate.of(2005, 5, 5));
+        second.setDuration(90);
+        second.setMpa(new Mpa(2L, "PG"));
+        second.setGenres(List.of(new Genre(1L, "Комедия"), new Genre(1L, "Комедия"), new Genre(4L, "Триллер")));
+        testFilm.setGenres(List.of(new Genre(2L, "Драма")));
+
+        List<Film> created = filmStorage.createAll(List.of(testFilm, second));
+
+        assertNotNull(created.get(0).getId());
+        assertNotNull(created.get(1).getId());
+        assertNotEquals(created.get(0).getId(), created.get(1).getId());
+        Film found = filmStorage.getById(created.get(1).getId()).orElseThrow();
+        assertEquals("Second Film", found.getName());
+        assertEquals(List.of(1L, 4L), found.getGenres().stream().map(Genre::getId).toList());
+        assertEquals(List.of(2L), filmStorage.getById(created.get(0).getId()).orElseThrow()
+                .getGenres().stream().map(Genre::getId).toList());
+    }
+
+    @Test
+    void testUpdateReplacesOnlyChangedGenres() {
+        testFilm.setGenres(List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма")));
+        Film created = filmStorage.create(testFilm);
+
+        created.setGenres(List.of(new Genre(2L, "Драма"), new Genre(4L, "Триллер"), new Genre(4L, "Триллер")));
+        Film updated = filmStorage.update(created);
+
+        assertEquals(2, updated.getGenres().size());
+        Film found = filmStorage.getById(created.getId()).orElseThrow();
+        assertEquals(List.of(2L, 4L), found.getGenres().stream().map(Genre::getId).toList());
+        assertEquals("Test Film", found.getName());
+    }
+
+    @Test
+    void testUpdateWithoutGenresRemovesLinks() {
+        testFilm.setGenres(List.of(new Genre(1L, "Комедия")));
+        Film created = filmStorage.create(testFilm);
+
+        created.setGenres(null);
+        filmStorage.update(created);
+
+        assertTrue(filmStorage.getById(created.getId()).orElseThrow().getGenres().isEmpty());
+    }
+
+    @Test
+    void testVersionChangesOnlyWithFilmRepresentation() {
+        Film created = filmStorage.create(testFilm);
+        assertEquals(Optional.of(0L), filmStorage.getById(created.getId()).map(Film::getVersion));
+
+        filmStorage.update(created);
+        assertEquals(Optional.of(0L), filmStorage.getById(created.getId()).map(Film::getVersion));
+
+        created.setName("Renamed");
+        filmStorage.update(created);
+        assertEquals(Optional.of(1L), filmStorage.getById(created.getId()).map(Film::getVersion));
+
+        // Лайк меняет rate в ответе, поэтому и ETag
+        assertEquals(2L, likeDao.addLike(created.getId(), 1000L).orElseThrow().getVersion());
+        assertEquals(Optional.of(2L), filmStorage.getById(created.getId()).map(Film::getVersion));
+    }
+
+    @Test
+    void testMarkDeletedHidesFilmAndPurgeRemovesLikesInBatches() {
+        filmStorage.markDeleted(100L);
+
+        assertTrue(filmStorage.getById(100L).isEmpty());
+        assertTrue(filmStorage.getAll().stream().noneMatch(film -> film.getId() == 100L));
+        assertThrows(NotFoundException.class, () -> filmStorage.markDeleted(100L));
+        assertEquals(List.of(100L), purgeDao.findDeletedFilmIds(10));
+
+        assertEquals(1, purgeDao.purgeFilmBatch(100L, 1));
+        assertEquals(1, purgeDao.purgeFilmBatch(100L, 1));
+        assertEquals(0, purgeDao.purgeFilmBatch(100L, 1));
+        assertEquals(0, purgeDao.countDeletedFilms());
+        assertTrue(likeDao.getLikes(100L).isEmpty());
+    }
+
     @Test
     void testGetFilmById() {
         Film created = filmStorage.create(testFilm);
@@ -76,6 +180,68 @@ class FilmDaoImplTest {
         assertEquals(created.getName(), found.get().getName());
     }
 
+    @Test
+    void testGetFilmByIdWithGenresAndDirectors() {
+        Director director = new Director();
+        director.setName("Питер Джексон");
+        director = directorDao.create(director);
+        Genre drama = new Genre(2L, "Драма");
+        testFilm.setGenres(List.of(drama, new Genre(6L, "Боевик")));
+        testFilm.setDirectors(List.of(director));
+        Film created = filmStorage.create(testFilm);
+
+        Film found = filmStorage.getById(created.getId()).orElseThrow();
+
+        assertEquals("G", found.getMpa().getName());
+        assertEquals(List.of(2L, 6L), found.getGenres().stream().map(Genre::getId).toList());
+        assertEquals("Драма", found.getGenres().get(0).getName());
+        assertEquals(1, found.getDirectors().size());
+        assertEquals("Питер Джексон", found.getDirectors().get(0).getName());
+    }
+
+    @Test
+    void testWritesAppendToChangeLog() {
+        Film created = filmStorage.create(testFilm);
+        created.setName("Updated Film");
+        filmStorage.update(created);
+        filmStorage.markDeleted(created.getId());
+
+        List<FilmChange> changes = filmChangeDao.getChangesSince(0, 100);
+
+        assertEquals(List.of(FilmChangeType.UPSERT, FilmChangeType.UPSERT, FilmChangeType.DELETE),
+                changes.stream().map(FilmChange::getType).toList());
+        assertTrue(changes.stream().allMatch(change -> change.getFilmId().equals(created.getId())));
+        long firstSeq = changes.get(0).getSeq();
+        assertEquals(2, filmChangeDao.getChangesSince(firstSeq, 100).size());
+    }
+
+    @Test
+    void testPruneRemovesOldChangesAndRecordsPrunedSeq() {
+        Film created = filmStorage.create(testFilm);
+        created.setName("Updated Film");
+        filmStorage.update(created);
+        long lastSeq = filmChangeDao.getChangesSince(0, 100).getLast().getSeq();
+
+        assertEquals(0, filmChangeDao.prune(Instant.now().minusSeconds(60)));
+        assertEquals(0, filmChangeDao.getPrunedSeq());
+
+        assertEquals(2, filmChangeDao.prune(Instant.now().plusSeconds(60)));
+        assertEquals(lastSeq, filmChangeDao.getPrunedSeq());
+        assertTrue(filmChangeDao.getChangesSince(0, 100).isEmpty());
+        assertEquals(lastSeq, filmChangeDao.getHeadSeq(Instant.now()));
+    }
+
+    @Test
+    void testGetHeadSeqSkipsUnsettledChanges() {
+        assertEquals(0, filmChangeDao.getHeadSeq(Instant.now().plusSeconds(60)));
+
+        filmStorage.create(testFilm);
+        long seq = filmChangeDao.getChangesSince(0, 100).getLast().getSeq();
+
+        assertEquals(0, filmChangeDao.getHeadSeq(Instant.now().minusSeconds(60)));
+        assertEquals(seq, filmChangeDao.getHeadSeq(Instant.now().plusSeconds(60)));
+    }
+
     @Test
     void testGetAllFilms() {
         filmStorage.create(testFilm);
@@ -84,34 +250,53 @@ class FilmDaoImplTest {
     }
 
     @Test
-    void testUpdateNonExistentFilm() {
-        testFilm.setId(999L);
-        assertThrows(NotFoundException.class, () -> filmStorage.update(testFilm));
+    void testGetAllSharesMpaInstances() {
+        Long firstId = filmStorage.create(testFilm).getId();
+        testFilm.setId(null);
+        Long secondId = filmStorage.create(testFilm).getId();
+
+        List<Film> films = filmStorage.getAll();
+        Film first = films.stream().filter(film -> film.getId().equals(firstId)).findFirst().orElseThrow();
+        Film second = films.stream().filter(film -> film.getId().equals(secondId)).findFirst().orElseThrow();
+
+        assertSame(first.getMpa(), second.getMpa());
     }
 
     @Test
-    void testGetNonExistentFilm() {
-        Optional<Film> found = filmStorage.getById(999L);
-        assertTrue(found.isEmpty());
+    void testGetPageSeeksByIdAfterCursor() {
+        List<Film> first = filmStorage.getPage(0, 2, FilmField.ALL);
+        assertEquals(List.of(100L, 200L), first.stream().map(Film::getId).toList());
+
+        List<Film> second = filmStorage.getPage(200L, 2, FilmField.ALL);
+        assertEquals(List.of(300L), second.stream().map(Film::getId).toList());
     }
 
     @Test
-    void testSearchFilmsByName_success() {
-        List<Film> films = filmStorage.searchFilms("колец", Set.of("title"));
-        assertEquals(1, films.size());
-        assertEquals("Властелин колец", films.get(0).getName());
+    void testStreamAllMergesGenresInIdOrder() {
+        List<Film> films = new ArrayList<>();
+        filmStorage.streamAll(films::add);
+
+        assertEquals(List.of(100L, 200L, 300L), films.stream().map(Film::getId).toList());
+        assertEquals(List.of(2L, 6L), films.get(0).getGenres().stream().map(Genre::getId).toList());
+        assertEquals(List.of(1L), films.get(1).getGenres().stream().map(Genre::getId).toList());
+        assertTrue(films.get(2).getDirectors().isEmpty());
     }
 
     @Test
-    void testSearchFilmsByDescription_success() {
-        List<Film> films = filmStorage.searchFilms("тайнах", Set.of("description"));
-        assertEquals(1, films.size());
-        assertEquals("Напряжённый сюжет о тайнах", films.get(0).getDescription());
+    void testGetByIdsSkipsUnknownIds() {
+        List<Film> films = filmStorage.getByIds(List.of(300L, 999L, 100L));
+        assertEquals(List.of(100L, 300L), films.stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void testUpdateNonExistentFilm() {
+        testFilm.setId(999L);
+        assertThrows(NotFoundException.class, () -> filmStorage.update(testFilm));
     }
 
     @Test
-    void testSearchFilmsNoResults_returnsEmptyList() {
-        List<Film> films = filmStorage.searchFilms("несуществующий", Set.of("title"));
-        assertTrue(films.isEmpty());
+    void testGetNonExistentFilm() {
+        Optional<Film> found = filmStorage.getById(999L);
+        assertTrue(found.isEmpty());
     }
 }
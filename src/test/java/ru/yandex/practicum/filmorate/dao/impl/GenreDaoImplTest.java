@@ -7,9 +7,11 @@ import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,7 +19,7 @@ import static org.junit.jupiter.api.Assertions.*;
 @JdbcTest
 @AutoConfigureTestDatabase
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
-@Import(GenreDaoImpl.class)
+@Import({GenreDaoImpl.class, ReferenceRegistry.class})
 class GenreDaoImplTest {
     @Autowired
     private GenreDaoImpl genreDao;
@@ -45,4 +47,16 @@ class GenreDaoImplTest {
         Optional<Genre> genre = genreDao.getGenreById(999L);
         assertTrue(genre.isEmpty(), "Non-existent genre should return empty Optional");
     }
-}
\ No newline at end of file
+
+    @Test
+    @Sql(scripts = "classpath:test-data.sql")
+    void testGetGenresByFilmIds() {
+        Map<Long, List<Genre>> genres = genreDao.getGenresByFilmIds(List.of(100L, 200L, 999L));
+
+        assertEquals(2, genres.get(100L).size());
+        assertEquals("Драма", genres.get(100L).get(0).getName());
+        assertEquals("Боевик", genres.get(100L).get(1).getName());
+        assertEquals(1, genres.get(200L).size());
+        assertFalse(genres.containsKey(999L));
+    }
+}
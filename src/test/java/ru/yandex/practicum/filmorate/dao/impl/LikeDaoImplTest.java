@@ -16,6 +16,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
@@ -95,4 +96,19 @@ class LikeDaoImplTest {
         assertTrue(likes.contains(userId1));
         assertTrue(likes.contains(userId2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLikeCountFollowsLikes() {
+        assertTrue(likeDao.addLike(filmId, userId1).isPresent());
+        assertFalse(likeDao.addLike(filmId, userId1).isPresent());
+        assertEquals(2, likeDao.addLike(filmId, userId2).orElseThrow().getLikeCount());
+        assertEquals(2, filmStorage.getById(filmId).orElseThrow().getRate());
+
+        assertEquals(1, likeDao.removeLike(filmId, userId1).orElseThrow().getLikeCount());
+        assertFalse(likeDao.removeLike(filmId, userId1).isPresent());
+        assertEquals(1, filmStorage.getById(filmId).orElseThrow().getRate());
+
+        userStorage.delete(userId2);
+        assertEquals(0, filmStorage.getById(filmId).orElseThrow().getRate());
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.dao.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.service.mapper.ReviewRowMapper;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@Import({ReviewDaoImpl.class, ReviewRowMapper.class})
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:test-data.sql")
+class ReviewDaoImplTest {
+    @Autowired
+    private ReviewDaoImpl reviewDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Review first;
+    private Review second;
+
+    @BeforeEach
+    void setUp() {
+        first = reviewDao.create(review(100L, 1000L));
+        second = reviewDao.create(review(200L, 1001L));
+    }
+
+    @Test
+    void testReviewsOfDeletedFilmAreHidden() {
+        jdbcTemplate.update("UPDATE films SET deleted_at = CURRENT_TIMESTAMP WHERE id = 100");
+
+        assertEquals(List.of(second.getReviewId()), reviewDao.list(10).stream().map(Review::getReviewId).toList());
+        assertTrue(reviewDao.filteredList(100L, 10).isEmpty());
+        assertFalse(reviewDao.exists(first.getReviewId()));
+    }
+
+    @Test
+    void testReviewsOfDeletedUserAreHidden() {
+        jdbcTemplate.update("UPDATE users SET deleted_at = CURRENT_TIMESTAMP WHERE id = 1001");
+
+        assertEquals(List.of(first.getReviewId()), reviewDao.list(10).stream().map(Review::getReviewId).toList());
+        assertTrue(reviewDao.filteredList(200L, 10).isEmpty());
+        assertFalse(reviewDao.exists(second.getReviewId()));
+        assertEquals("Отзыв", reviewDao.get(first.getReviewId()).getContent());
+    }
+
+    private static Review review(Long filmId, Long userId) {
+        Review review = new Review();
+        review.setContent("Отзыв");
+        review.setIsPositive(true);
+        review.setFilmId(filmId);
+        review.setUserId(userId);
+        return review;
+    }
+}
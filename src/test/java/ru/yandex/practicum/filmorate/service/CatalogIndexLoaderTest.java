@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import ru.yandex.practicum.filmorate.dao.FilmDao;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.snapshot.CatalogSnapshotService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogIndexLoaderTest {
+
+    private final Film first = film(1L);
+    private final Film second = film(2L);
+    private FilmDao filmDao;
+    private FilmService filmService;
+    private CatalogSnapshotService snapshotService;
+    private RecordingIndex popularity;
+    private RecordingIndex search;
+
+    @BeforeEach
+    void setUp() {
+        filmDao = mock(FilmDao.class);
+        filmService = mock(FilmService.class);
+        snapshotService = mock(CatalogSnapshotService.class);
+        popularity = new RecordingIndex();
+        search = new RecordingIndex();
+    }
+
+    @Test
+    void withoutSnapshot_streamsCatalogOnceForAllIndexes() {
+        doAnswer(invocation -> {
+            Consumer<Film> consumer = invocation.getArgument(0);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(filmDao).streamAll(any());
+
+        loader(null).afterSingletonsInstantiated();
+
+        verify(filmDao, times(1)).streamAll(any());
+        assertEquals(List.of("start", "1", "2", "finish"), popularity.calls);
+        assertEquals(List.of("start", "1", "2", "finish"), search.calls);
+    }
+
+    @Test
+    void withSnapshot_readsOnlyStaleFilmsFromDatabase() {
+        when(snapshotService.load(any())).thenAnswer(invocation -> {
+            Consumer<Film> consumer = invocation.getArgument(0);
+            consumer.accept(first);
+            return Set.of(1L);
+        });
+        when(filmDao.getVersions()).thenReturn(Map.of(1L, 3L, 2L, 5L));
+        when(filmDao.getByIds(List.of(2L))).thenReturn(List.of(second));
+        when(filmService.loadGenresAndDirectors(List.of(second))).thenReturn(List.of(second));
+
+        loader(snapshotService).afterSingletonsInstantiated();
+
+        verify(filmDao, never()).streamAll(any());
+        assertEquals(List.of("start", "1", "2", "finish"), popularity.calls);
+        assertEquals(List.of("start", "1", "2", "finish"), search.calls);
+    }
+
+    private static Film film(Long id) {
+        Film film = new Film();
+        film.setId(id);
+        return film;
+    }
+
+    @SuppressWarnings("unchecked")
+    private CatalogIndexLoader loader(CatalogSnapshotService snapshot) {
+        ObjectProvider<CatalogSnapshotService> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(snapshot);
+        return new CatalogIndexLoader(filmDao, filmService, provider, List.of(popularity, search));
+    }
+
+    private static class RecordingIndex implements CatalogIndex {
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void startLoad() {
+            calls.add("start");
+        }
+
+        @Override
+        public void load(Film film) {
+            calls.add(String.valueOf(film.getId()));
+        }
+
+        @Override
+        public void finishLoad() {
+            calls.add("finish");
+        }
+    }
+}
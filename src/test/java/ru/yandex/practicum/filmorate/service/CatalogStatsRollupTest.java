@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.CatalogStats;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogStatsRollupTest {
+
+    private PopularityIndex popularityIndex;
+    private CatalogStatsRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        List<Film> films = List.of(
+                film(1L, 2001, 100, 5, 1L, 1L),
+                film(2L, 2001, 120, 7, 2L, 2L),
+                film(3L, 2010, 140, 7, 1L, 1L, 2L));
+        popularityIndex = new PopularityIndex();
+        rollup = new CatalogStatsRollup(popularityIndex);
+        films.forEach(popularityIndex::load);
+        films.forEach(rollup::load);
+        rollup.finishLoad();
+    }
+
+    @Test
+    void get_returnsAggregatesBuiltAtStartup() {
+        CatalogStats stats = rollup.get();
+
+        assertEquals(3, stats.getFilmCount());
+        assertEquals(19, stats.getLikeCount());
+        assertEquals(120.0, stats.getAverageDuration());
+        assertEquals(Map.of(2001, 2, 2010, 1), stats.getFilmsByYear());
+        assertEquals(Map.of(1L, Map.of(2001, 1, 2010, 1), 2L, Map.of(2001, 1, 2010, 1)),
+                stats.getFilmsByGenreAndYear());
+        assertEquals(Map.of(1L, 12L, 2L, 7L), stats.getLikesByMpa());
+    }
+
+    @Test
+    void likesAndFilmChanges_updateAggregatesIncrementally() {
+        popularityIndex.adjustLikes(2L, 1);
+        rollup.put(film(3L, 2001, 80, 0, 2L));
+        rollup.remove(1L);
+
+        CatalogStats stats = rollup.get();
+
+        assertEquals(2, stats.getFilmCount());
+        assertEquals(15, stats.getLikeCount());
+        assertEquals(100.0, stats.getAverageDuration());
+        assertEquals(Map.of(2001, 2), stats.getFilmsByYear());
+        assertEquals(Map.of(2L, Map.of(2001, 1)), stats.getFilmsByGenreAndYear());
+        assertEquals(Map.of(2L, 15L), stats.getLikesByMpa());
+    }
+
+    @Test
+    void put_afterLikeOnNewFilm_takesLikesFromPopularityIndex() {
+        Film created = film(4L, 2020, 90, 0, 2L);
+        popularityIndex.put(created);
+        // Лайк пришел, когда фильм уже есть в рейтинге, но еще не в статистике
+        popularityIndex.adjustLikes(4L, 2);
+        rollup.put(created);
+
+        CatalogStats stats = rollup.get();
+
+        assertEquals(21, stats.getLikeCount());
+        assertEquals(Map.of(1L, 12L, 2L, 9L), stats.getLikesByMpa());
+    }
+
+    @Test
+    void concurrentLikesOnNewFilms_areCountedOnce() throws Exception {
+        int films = 500;
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        CompletableFuture<Void> creates = CompletableFuture.runAsync(() -> {
+            for (long id = 100; id < 100 + films; id++) {
+                Film created = film(id, 2000, 90, 0, 1L);
+                await(barrier);
+                popularityIndex.put(created);
+                rollup.put(created);
+            }
+        });
+        CompletableFuture<Void> likes = CompletableFuture.runAsync(() -> {
+            for (long id = 100; id < 100 + films; id++) {
+                await(barrier);
+                while (!popularityIndex.matches(id, null, null)) {
+                    Thread.onSpinWait();
+                }
+                popularityIndex.adjustLikes(id, 1);
+            }
+        });
+        CompletableFuture.allOf(creates, likes).get();
+
+        assertEquals(19 + films, rollup.get().getLikeCount());
+    }
+
+    private static Film film(Long id, int year, int duration, int likes, Long mpaId, Long... genreIds) {
+        Film film = new Film();
+        film.setId(id);
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setDuration(duration);
+        film.setRate(likes);
+        film.setMpa(new Mpa(mpaId, null));
+        film.setGenres(Arrays.stream(genreIds).map(genreId -> new Genre(genreId, null)).toList());
+        return film;
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
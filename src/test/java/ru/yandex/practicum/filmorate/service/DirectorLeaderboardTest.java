@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dao.DirectorDao;
+import ru.yandex.practicum.filmorate.dto.DirectorRank;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DirectorLeaderboardTest {
+
+    private PopularityIndex popularityIndex;
+    private DirectorLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        List<Film> films = List.of(
+                film(1L, 5, 1L),
+                film(2L, 7, 2L),
+                film(3L, 1, 1L, 2L),
+                film(4L, 0, 1L));
+        DirectorDao directorDao = mock(DirectorDao.class);
+        when(directorDao.getAll()).thenReturn(List.of(director(1L, "First"), director(2L, "Second")));
+        popularityIndex = new PopularityIndex();
+        leaderboard = new DirectorLeaderboard(directorDao, popularityIndex);
+        films.forEach(popularityIndex::load);
+        leaderboard.startLoad();
+        films.forEach(leaderboard::load);
+        leaderboard.finishLoad();
+    }
+
+    @Test
+    void top_ranksDirectorsByLikesAndByFilms() {
+        assertEquals(List.of(new DirectorRank(2L, "Second", 8, 2), new DirectorRank(1L, "First", 6, 3)),
+                leaderboard.top(DirectorLeaderboard.SortBy.LIKES, 10));
+        assertEquals(List.of(new DirectorRank(1L, "First", 6, 3)),
+                leaderboard.top(DirectorLeaderboard.SortBy.FILMS, 1));
+    }
+
+    @Test
+    void likesAndDirectorChanges_reorderLeaderboard() {
+        popularityIndex.adjustLikes(1L, 4);
+        leaderboard.put(film(2L, 0, 1L));
+
+        assertEquals(List.of(new DirectorRank(1L, "First", 17, 4), new DirectorRank(2L, "Second", 1, 1)),
+                leaderboard.top(DirectorLeaderboard.SortBy.LIKES, 10));
+
+        leaderboard.removeDirector(1L);
+        leaderboard.remove(3L);
+
+        assertTrue(leaderboard.top(DirectorLeaderboard.SortBy.FILMS, 10).isEmpty());
+    }
+
+    @Test
+    void put_afterLikeOnNewFilm_takesLikesFromPopularityIndex() {
+        Film created = film(5L, 0, 2L);
+        popularityIndex.put(created);
+        popularityIndex.adjustLikes(5L, 3);
+        leaderboard.put(created);
+
+        assertEquals(List.of(new DirectorRank(2L, "Second", 11, 3), new DirectorRank(1L, "First", 6, 3)),
+                leaderboard.top(DirectorLeaderboard.SortBy.LIKES, 10));
+    }
+
+    private static Film film(Long id, int likes, Long... directorIds) {
+        Film film = new Film();
+        film.setId(id);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setRate(likes);
+        film.setDirectors(Arrays.stream(directorIds).map(directorId -> director(directorId, null)).toList());
+        return film;
+    }
+
+    private static Director director(Long id, String name) {
+        Director director = new Director();
+        director.setId(id);
+        director.setName(name);
+        return director;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dao.FilmDao;
+import ru.yandex.practicum.filmorate.dto.FilmCacheStats;
+import ru.yandex.practicum.filmorate.dto.FilmLikeCount;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FilmCacheTest {
+
+    private FilmDao filmDao;
+    private FilmCache filmCache;
+
+    @BeforeEach
+    void setUp() {
+        filmDao = mock(FilmDao.class);
+        filmCache = new FilmCache(filmDao, 1_000_000);
+    }
+
+    @Test
+    void getById_loadsOnceUntilInvalidated() {
+        Film film = new Film();
+        film.setId(1L);
+        film.setName("Film");
+        when(filmDao.getById(1L)).thenReturn(Optional.of(film));
+
+        assertEquals(Optional.of(film), filmCache.getById(1L));
+        assertEquals(Optional.of(film), filmCache.getById(1L));
+        verify(filmDao, times(1)).getById(1L);
+
+        filmCache.invalidateAll(List.of(1L));
+        filmCache.getById(1L);
+        verify(filmDao, times(2)).getById(1L);
+
+        FilmCacheStats stats = filmCache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+    }
+
+    @Test
+    void updateLikes_replacesOnlyOlderCachedVersion() {
+        Film film = new Film();
+        film.setId(1L);
+        film.setName("Film");
+        film.setVersion(3L);
+        when(filmDao.getById(1L)).thenReturn(Optional.of(film));
+        filmCache.getById(1L);
+
+        filmCache.updateLikes(1L, new FilmLikeCount(7, 3L));
+        assertSame(film, filmCache.getById(1L).orElseThrow());
+
+        filmCache.updateLikes(1L, new FilmLikeCount(8, 4L));
+        Film updated = filmCache.getById(1L).orElseThrow();
+        assertEquals(8, updated.getRate());
+        assertEquals(4L, updated.getVersion());
+        assertEquals("Film", updated.getName());
+        assertEquals(0, film.getRate());
+        verify(filmDao, times(1)).getById(1L);
+    }
+
+    @Test
+    void getById_doesNotCacheMissingFilm() {
+        when(filmDao.getById(2L)).thenReturn(Optional.empty());
+
+        assertTrue(filmCache.getById(2L).isEmpty());
+        assertTrue(filmCache.getById(2L).isEmpty());
+
+        verify(filmDao, times(2)).getById(2L);
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.FilmFacets;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmFilterIndexTest {
+
+    private PopularityIndex popularityIndex;
+    private FilmFilterIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Film> films = List.of(
+                film(1L, 2001, 5, 1L, 10L, 1L),
+                film(2L, 2001, 7, 2L, 20L, 2L),
+                film(3L, 2010, 7, 1L, 10L, 1L, 2L),
+                film(4L, 2015, 1, 3L, null));
+        popularityIndex = new PopularityIndex();
+        index = new FilmFilterIndex(popularityIndex);
+        films.forEach(popularityIndex::load);
+        index.startLoad();
+        films.forEach(index::load);
+        index.finishLoad();
+    }
+
+    @Test
+    void top_combinesFiltersAndOrdersByLikes() {
+        assertEquals(List.of(2L, 3L, 1L, 4L), index.top(filter(Set.of(), false, null, null, Set.of(), Set.of()), 10));
+        assertEquals(List.of(2L, 3L, 1L), index.top(filter(Set.of(1L, 2L), false, null, null, Set.of(), Set.of()), 10));
+        assertEquals(List.of(3L), index.top(filter(Set.of(1L, 2L), true, null, null, Set.of(), Set.of()), 10));
+        assertEquals(List.of(3L, 4L), index.top(filter(Set.of(), false, 2005, 2020, Set.of(), Set.of()), 10));
+        assertEquals(List.of(3L, 1L), index.top(filter(Set.of(), false, null, null, Set.of(1L), Set.of(10L)), 10));
+        assertEquals(List.of(2L), index.top(filter(Set.of(2L), false, 2000, 2001, Set.of(), Set.of()), 1));
+        assertTrue(index.top(filter(Set.of(5L), false, null, null, Set.of(), Set.of()), 10).isEmpty());
+    }
+
+    @Test
+    void top_followsLikeChanges() {
+        popularityIndex.adjustLikes(1L, 3);
+
+        assertEquals(List.of(1L, 3L), index.top(filter(Set.of(1L), false, null, null, Set.of(), Set.of()), 10));
+    }
+
+    @Test
+    void put_movesFilmBetweenBitmaps() {
+        index.put(film(3L, 2001, 0, 2L, 20L, 3L));
+        index.put(film(5L, 2020, 0, 1L, null, 1L));
+
+        assertEquals(List.of(1L, 5L), index.top(filter(Set.of(1L), false, null, null, Set.of(), Set.of()), 10));
+        assertEquals(List.of(2L, 3L), index.top(filter(Set.of(), false, 2001, 2001, Set.of(2L), Set.of()), 10));
+    }
+
+    @Test
+    void remove_dropsFilmAndDirector() {
+        index.remove(1L);
+        index.removeDirector(20L);
+
+        assertEquals(List.of(3L), index.top(filter(Set.of(1L), false, null, null, Set.of(), Set.of()), 10));
+        assertTrue(index.top(filter(Set.of(), false, null, null, Set.of(), Set.of(20L)), 10).isEmpty());
+    }
+
+    @Test
+    void facets_countFilmsPerGenreMpaAndDecade() {
+        FilmFacets facets = index.facets(filter(Set.of(1L), false, null, null, Set.of(), Set.of()));
+
+        assertEquals(2, facets.getTotal());
+        assertEquals(Map.of(1L, 2, 2L, 1), facets.getGenres());
+        assertEquals(Map.of(1L, 2), facets.getMpa());
+        assertEquals(Map.of(2000, 1, 2010, 1), facets.getDecades());
+
+        FilmFacets byIds = index.facets(List.of(2L, 4L, 99L));
+
+        assertEquals(2, byIds.getTotal());
+        assertEquals(Map.of(2L, 1), byIds.getGenres());
+        assertEquals(Map.of(2L, 1, 3L, 1), byIds.getMpa());
+        assertEquals(Map.of(2000, 1, 2010, 1), byIds.getDecades());
+    }
+
+    private FilmFilter filter(Set<Long> genreIds, boolean allGenres, Integer yearFrom, Integer yearTo,
+                              Set<Long> mpaIds, Set<Long> directorIds) {
+        return new FilmFilter(genreIds, allGenres, yearFrom, yearTo, mpaIds, directorIds);
+    }
+
+    private static Film film(Long id, int year, int likes, Long mpaId, Long directorId, Long... genreIds) {
+        Film film = new Film();
+        film.setId(id);
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setRate(likes);
+        film.setMpa(new Mpa(mpaId, null));
+        if (directorId != null) {
+            Director director = new Director();
+            director.setId(directorId);
+            film.setDirectors(List.of(director));
+        }
+        film.setGenres(Arrays.stream(genreIds).map(genreId -> new Genre(genreId, null)).toList());
+        return film;
+    }
+}
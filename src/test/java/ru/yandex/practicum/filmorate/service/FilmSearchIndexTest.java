@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dao.DirectorDao;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FilmSearchIndexTest {
+
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Film> films = List.of(
+                film(1L, "Властелин колец", "Фильм о хоббитах", 5, 1L),
+                film(2L, "Кольца", "Фильм о тайнах колец", 7),
+                film(3L, "Хоббит", "Приключение", 1, 1L));
+        DirectorDao directorDao = mock(DirectorDao.class);
+        when(directorDao.getAll()).thenReturn(List.of(director(1L, "Питер Джексон")));
+        PopularityIndex popularityIndex = new PopularityIndex();
+        index = new FilmSearchIndex(directorDao, popularityIndex);
+        films.forEach(popularityIndex::load);
+        index.startLoad();
+        films.forEach(index::load);
+        index.finishLoad();
+    }
+
+    @Test
+    void search_matchesSubstringsInSelectedFields() {
+        assertEquals(List.of(1L), index.search("КОЛЕЦ", Set.of("title"), false));
+        assertEquals(List.of(2L, 1L), index.search("колец", Set.of("title", "description"), false));
+        assertEquals(List.of(1L, 3L), index.search("жекс", Set.of("director"), false));
+        assertEquals(List.of(2L, 1L, 3L), index.search("о", Set.of("title"), false));
+        assertTrue(index.search("несуществующий", Set.of("title", "director", "description"), false).isEmpty());
+    }
+
+    @Test
+    void search_byRelevancePrefersTitleMatchesAtWordStart() {
+        assertEquals(List.of(3L, 1L), index.search("хоббит", Set.of("title", "description"), true));
+        assertEquals(List.of(1L, 3L), index.search("хоббит", Set.of("title", "description"), false));
+    }
+
+    @Test
+    void writes_updateIndex() {
+        index.put(film(3L, "Хоббит: Пустошь Смауга", "Приключение", 0));
+        index.putDirector(director(1L, "Другой режиссер"));
+        index.remove(2L);
+
+        assertEquals(List.of(3L), index.search("смауг", Set.of("title"), false));
+        assertEquals(List.of(1L), index.search("другой", Set.of("director"), false));
+        assertTrue(index.search("джексон", Set.of("director"), false).isEmpty());
+        assertTrue(index.search("тайнах", Set.of("description"), false).isEmpty());
+
+        index.removeDirector(1L);
+
+        assertTrue(index.search("другой", Set.of("director"), false).isEmpty());
+    }
+
+    private static Film film(Long id, String name, String description, int likes, Long... directorIds) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setRate(likes);
+        film.setDirectors(Arrays.stream(directorIds).map(directorId -> director(directorId, null)).toList());
+        return film;
+    }
+
+    private static Director director(Long id, String name) {
+        Director director = new Director();
+        director.setId(id);
+        director.setName(name);
+        return director;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,19 +8,32 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import ru.yandex.practicum.filmorate.dao.*;
+import ru.yandex.practicum.filmorate.dto.FilmBatchResult;
+import ru.yandex.practicum.filmorate.dto.FilmChangesResponse;
+import ru.yandex.practicum.filmorate.dto.FilmLikeCount;
+import ru.yandex.practicum.filmorate.dto.FilmsByIdsResponse;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChange;
+import ru.yandex.practicum.filmorate.model.FilmChangeType;
+import ru.yandex.practicum.filmorate.model.FilmField;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -46,7 +60,40 @@ class FilmServiceTest {
     private EventDao eventDao;
 
     @Mock
-    private DirectorService directorService;
+    private DirectorDao directorDao;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private FilmCache filmCache;
+
+    @Mock
+    private FilmChangeDao filmChangeDao;
+
+    @Mock
+    private PopularityIndex popularityIndex;
+
+    @Mock
+    private PopularFilmsCache popularFilmsCache;
+
+    @Mock
+    private TrendingIndex trendingIndex;
+
+    @Mock
+    private LikeBurstTracker likeBurstTracker;
+
+    @Mock
+    private FilmFilterIndex filmFilterIndex;
+
+    @Mock
+    private CatalogStatsRollup catalogStatsRollup;
+
+    @Mock
+    private DirectorLeaderboard directorLeaderboard;
+
+    @Mock
+    private FilmSearchIndex filmSearchIndex;
 
     @InjectMocks
     private FilmService filmService;
@@ -55,17 +102,9 @@ class FilmServiceTest {
     void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
 
-        // Настройка Mpa
-        Mpa mpa = new Mpa();
-        mpa.setId(1L);
-        mpa.setName("G");
-        when(mpaDao.getMpaById(anyLong())).thenReturn(Optional.of(mpa));
-
-        // Настройка Genre
-        Genre genre = new Genre();
-        genre.setId(1L);
-        genre.setName("Комедия");
-        when(genreDao.getGenreById(anyLong())).thenReturn(Optional.of(genre));
+        // Известные справочники: MPA 1 и жанр 1
+        when(mpaDao.findExistingIds(anyCollection())).thenReturn(Set.of(1L));
+        when(genreDao.findExistingIds(anyCollection())).thenReturn(Set.of(1L));
 
         // Настройка existsById для update
         when(filmStorage.existsById(anyLong())).thenReturn(true);
@@ -97,13 +136,13 @@ class FilmServiceTest {
 
         assertEquals(film, result);
         verify(filmStorage, times(1)).update(film);
+        verify(filmCache, times(1)).invalidate(film.getId());
     }
 
     @Test
     void shouldThrowNotFoundExceptionWhenMpaNotFound() {
         Film film = createTestFilm();
         film.getMpa().setId(999L);
-        when(mpaDao.getMpaById(999L)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
@@ -120,8 +159,6 @@ class FilmServiceTest {
         genre.setId(999L);
         film.getGenres().add(genre);
 
-        when(genreDao.getGenreById(999L)).thenReturn(Optional.empty());
-
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> filmService.create(film)
@@ -130,6 +167,30 @@ class FilmServiceTest {
         assertEquals("Жанр с ID 999 не найден", exception.getMessage());
     }
 
+    @Test
+    void create_reportsAllUnknownReferencesWithOneQueryPerTable() {
+        Film film = createTestFilm();
+        for (long genreId : new long[]{1L, 998L, 999L}) {
+            film.getGenres().add(new Genre(genreId, null));
+        }
+        Director director = new Director();
+        director.setId(7L);
+        film.getDirectors().add(director);
+
+        NotFoundException exception = assertThrows(
+                NotFoundException.class,
+                () -> filmService.create(film)
+        );
+
+        assertEquals("Жанр с ID 998 не найден; Жанр с ID 999 не найден; Режиссер с ID 7 не найден",
+                exception.getMessage());
+        verify(mpaDao, times(1)).findExistingIds(anyCollection());
+        verify(genreDao, times(1)).findExistingIds(anyCollection());
+        verify(directorDao, times(1)).findExistingIds(anyCollection());
+        verify(genreDao, never()).getGenreById(anyLong());
+        verify(filmStorage, never()).create(any());
+    }
+
     @Test
     void addLike_success() {
         Long filmId = 1L;
@@ -138,15 +199,36 @@ class FilmServiceTest {
         User user = new User();
         user.setId(userId);
 
-        when(filmStorage.getById(filmId)).thenReturn(Optional.of(film));
+        when(filmCache.getById(filmId)).thenReturn(Optional.of(film));
         when(userStorage.getById(userId)).thenReturn(Optional.of(user));
-        doNothing().when(likeDao).addLike(filmId, userId);
+        when(likeDao.addLike(filmId, userId)).thenReturn(Optional.of(new FilmLikeCount(1, 2L)));
 
         filmService.addLike(filmId, userId);
 
-        verify(filmStorage, times(1)).getById(filmId);
+        verify(filmCache, times(1)).getById(filmId);
         verify(userStorage, times(1)).getById(userId);
         verify(likeDao, times(1)).addLike(filmId, userId);
+        verify(popularityIndex, times(1)).adjustLikes(filmId, 1);
+        verify(likeBurstTracker, times(1)).record(filmId);
+        verify(filmCache, times(1)).updateLikes(filmId, new FilmLikeCount(1, 2L));
+        verify(filmCache, never()).invalidate(filmId);
+    }
+
+    @Test
+    void addLike_repeated_doesNotTouchIndexes() {
+        Long filmId = 1L;
+        Long userId = 1L;
+        User user = new User();
+        user.setId(userId);
+
+        when(filmCache.getById(filmId)).thenReturn(Optional.of(createTestFilm()));
+        when(userStorage.getById(userId)).thenReturn(Optional.of(user));
+        when(likeDao.addLike(filmId, userId)).thenReturn(Optional.empty());
+
+        filmService.addLike(filmId, userId);
+
+        verify(popularityIndex, never()).adjustLikes(anyLong(), anyInt());
+        verify(likeBurstTracker, never()).record(anyLong());
     }
 
     @Test
@@ -155,23 +237,177 @@ class FilmServiceTest {
         film.setId(1L);
         film.setName("Властелин колец");
 
-        when(filmStorage.searchFilms("колец", Set.of("title", "director"))).thenReturn(List.of(film));
+        when(filmSearchIndex.search("колец", Set.of("title", "director"), false)).thenReturn(List.of(1L));
+        when(filmCache.getById(1L)).thenReturn(Optional.of(film));
 
-        List<Film> result = filmService.searchFilms("колец", Set.of("title", "director"));
+        List<Film> result = filmService.searchFilms("колец", Set.of("title", "director"), false);
 
         assertEquals(1, result.size());
         assertEquals("Властелин колец", result.get(0).getName());
-        verify(filmStorage, times(1)).searchFilms("колец", Set.of("title", "director"));
+        verify(filmSearchIndex, times(1)).search("колец", Set.of("title", "director"), false);
     }
 
     @Test
     void searchFilmsNoResults_returnsEmptyList() {
-        when(filmStorage.searchFilms("несуществующий", Set.of("title", "director"))).thenReturn(Collections.emptyList());
+        when(filmSearchIndex.search("несуществующий", Set.of("title", "director"), false)).thenReturn(List.of());
 
-        List<Film> result = filmService.searchFilms("несуществующий", Set.of("title", "director"));
+        List<Film> result = filmService.searchFilms("несуществующий", Set.of("title", "director"), false);
 
         assertTrue(result.isEmpty());
-        verify(filmStorage, times(1)).searchFilms("несуществующий", Set.of("title", "director"));
+        verify(filmSearchIndex, times(1)).search("несуществующий", Set.of("title", "director"), false);
+    }
+
+    @Test
+    void getAll_loadsGenresAndDirectorsInBulk() {
+        Film first = createTestFilm();
+        Film second = createTestFilm();
+        second.setId(2L);
+        Genre genre = new Genre(1L, "Комедия");
+        Director director = new Director();
+        director.setId(1L);
+        director.setName("Director");
+
+        when(filmStorage.getAll(FilmField.ALL)).thenReturn(List.of(first, second));
+        when(genreDao.getGenresByFilmIds(List.of(1L, 2L))).thenReturn(Map.of(1L, List.of(genre)));
+        when(directorDao.getDirectorsByFilmIds(List.of(1L, 2L))).thenReturn(Map.of(2L, List.of(director)));
+
+        List<Film> result = filmService.getAll(FilmField.ALL);
+
+        assertEquals(List.of(genre), result.get(0).getGenres());
+        assertTrue(result.get(0).getDirectors().isEmpty());
+        assertTrue(result.get(1).getGenres().isEmpty());
+        assertEquals(List.of(director), result.get(1).getDirectors());
+        verify(genreDao, times(1)).getGenresByFilmIds(anyCollection());
+        verify(directorDao, times(1)).getDirectorsByFilmIds(anyCollection());
+        verify(genreDao, never()).getGenresByFilmId(anyLong());
+    }
+
+    @Test
+    void getAll_withoutGenresAndDirectorsFields_skipsLinkQueries() {
+        Set<FilmField> fields = EnumSet.of(FilmField.ID, FilmField.NAME);
+        when(filmStorage.getAll(fields)).thenReturn(List.of(createTestFilm()));
+
+        List<Film> result = filmService.getAll(fields);
+
+        assertEquals(1, result.size());
+        verify(genreDao, never()).getGenresByFilmIds(anyCollection());
+        verify(directorDao, never()).getDirectorsByFilmIds(anyCollection());
+    }
+
+    @Test
+    void createAll_reportsPerItemResults() {
+        Film valid = createTestFilm();
+        valid.setId(null);
+        valid.getGenres().add(new Genre(1L, "Комедия"));
+        Film unknownGenre = createTestFilm();
+        unknownGenre.setId(null);
+        unknownGenre.getGenres().add(new Genre(999L, null));
+        Film tooEarly = createTestFilm();
+        tooEarly.setId(null);
+        tooEarly.setReleaseDate(LocalDate.of(1800, 1, 1));
+
+        when(mpaDao.findExistingIds(anyCollection())).thenReturn(Set.of(1L));
+        when(genreDao.findExistingIds(anyCollection())).thenReturn(Set.of(1L));
+        when(filmStorage.createAll(anyList())).thenAnswer(invocation -> {
+            List<Film> films = invocation.getArgument(0);
+            films.forEach(film -> film.setId(42L));
+            return films;
+        });
+
+        List<FilmBatchResult> results = filmService.createAll(List.of(valid, unknownGenre, tooEarly));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isCreated());
+        assertEquals(42L, results.get(0).getId());
+        assertFalse(results.get(1).isCreated());
+        assertEquals("Жанр с ID 999 не найден", results.get(1).getError());
+        assertFalse(results.get(2).isCreated());
+        assertEquals(2, results.get(2).getIndex());
+        verify(filmStorage, times(1)).createAll(List.of(valid));
+        verify(genreDao, times(1)).findExistingIds(anyCollection());
+        verify(genreDao, never()).getGenreById(anyLong());
+    }
+
+    @Test
+    void getByIds_keepsRequestOrderAndReportsMissing() {
+        Film first = createTestFilm();
+        Film second = createTestFilm();
+        second.setId(2L);
+        when(filmStorage.getByIds(List.of(2L, 999L, 1L, 2L))).thenReturn(List.of(first, second));
+
+        FilmsByIdsResponse response = filmService.getByIds(List.of(2L, 999L, 1L, 2L));
+
+        assertEquals(List.of(2L, 1L), response.getFilms().stream().map(Film::getId).toList());
+        assertEquals(List.of(999L), response.getMissingIds());
+        verify(filmStorage, never()).getById(anyLong());
+    }
+
+    @Test
+    void getChangesSince_collapsesChangesPerFilm() {
+        Film film = createTestFilm();
+        when(filmChangeDao.getChangesSince(10L, 4)).thenReturn(List.of(
+                new FilmChange(11, 1L, FilmChangeType.UPSERT, Instant.now()),
+                new FilmChange(12, 2L, FilmChangeType.UPSERT, Instant.now()),
+                new FilmChange(13, 1L, FilmChangeType.UPSERT, Instant.now()),
+                new FilmChange(14, 2L, FilmChangeType.DELETE, Instant.now())));
+        // Фильм 2 уже удалён физически, хотя последнее учтённое изменение - UPSERT
+        when(filmStorage.getByIds(List.of(2L, 1L))).thenReturn(List.of(film));
+
+        FilmChangesResponse response = filmService.getChangesSince(10L, 3);
+
+        assertEquals(List.of(film), response.getFilms());
+        assertEquals(List.of(2L), response.getDeletedIds());
+        assertEquals(13L, response.getNextSeq());
+        assertTrue(response.isHasMore());
+        verify(filmChangeDao, times(1)).getChangesSince(eq(10L), anyInt());
+    }
+
+    @Test
+    void getChangesSince_cursorBeforePrunedSeq_throwsValidationException() {
+        when(filmChangeDao.getChangesSince(10L, 4))
+                .thenReturn(List.of(new FilmChange(21, 1L, FilmChangeType.UPSERT, Instant.now())));
+        when(filmChangeDao.getPrunedSeq()).thenReturn(20L);
+
+        assertThrows(ValidationException.class, () -> filmService.getChangesSince(10L, 3));
+        verify(filmStorage, never()).getByIds(anyList());
+    }
+
+    @Test
+    void getChangesSince_freshGap_stopsBeforeUncommittedSeq() {
+        Film film = createTestFilm();
+        when(filmChangeDao.getChangesSince(10L, 4)).thenReturn(List.of(
+                new FilmChange(11, 1L, FilmChangeType.UPSERT, Instant.now()),
+                new FilmChange(13, 2L, FilmChangeType.UPSERT, Instant.now())));
+        when(filmStorage.getByIds(List.of(1L))).thenReturn(List.of(film));
+
+        FilmChangesResponse response = filmService.getChangesSince(10L, 3);
+
+        assertEquals(List.of(film), response.getFilms());
+        assertEquals(11L, response.getNextSeq());
+        assertFalse(response.isHasMore());
+    }
+
+    @Test
+    void getChangesSince_oldGap_isTreatedAsRollback() {
+        Instant old = Instant.now().minusSeconds(60);
+        when(filmChangeDao.getChangesSince(10L, 4)).thenReturn(List.of(
+                new FilmChange(11, 1L, FilmChangeType.DELETE, old),
+                new FilmChange(13, 2L, FilmChangeType.DELETE, old)));
+
+        FilmChangesResponse response = filmService.getChangesSince(10L, 3);
+
+        assertEquals(List.of(1L, 2L), response.getDeletedIds());
+        assertEquals(13L, response.getNextSeq());
+    }
+
+    @Test
+    void getPopularFilms_readsResultCache() {
+        Film film = createTestFilm();
+        when(popularFilmsCache.get(2, 1, 2000)).thenReturn(List.of(film));
+
+        List<Film> result = filmService.getPopularFilms(2, 1, 2000);
+
+        assertEquals(List.of(film), result);
     }
 
     private Film createTestFilm() {
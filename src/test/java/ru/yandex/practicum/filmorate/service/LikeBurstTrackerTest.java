@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.LikeBurst;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LikeBurstTrackerTest {
+
+    private MutableClock clock;
+    private LikeBurstTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T12:00:30Z"));
+        tracker = new LikeBurstTracker(Duration.ofMinutes(1), 3, clock);
+    }
+
+    @Test
+    void recent_findsHeavyHitterWithinErrorBound() {
+        for (int i = 0; i < 500; i++) {
+            tracker.record(1L);
+        }
+        for (long filmId = 2; filmId < 1000; filmId++) {
+            tracker.record(filmId);
+        }
+
+        List<LikeBurst> bursts = tracker.recent(1, 3);
+
+        assertEquals(1, bursts.size());
+        LikeBurst burst = bursts.getFirst();
+        assertEquals(Instant.parse("2024-01-01T12:00:00Z"), burst.getBucketStart());
+        assertEquals(1498, burst.getTotalLikes());
+        LikeBurst.HeavyHitter top = burst.getFilms().getFirst();
+        assertEquals(1L, top.getFilmId());
+        assertTrue(top.getEstimatedLikes() >= 500);
+        assertTrue(top.getEstimatedLikes() <= 500 + burst.getMaxOverestimate());
+        assertEquals(3, burst.getFilms().size());
+    }
+
+    @Test
+    void recent_lateHeavyHitterDisplacesWeakestCandidate() {
+        for (long filmId = 1; filmId <= 2L * LikeBurstTracker.MAX_HEAVY_HITTERS; filmId++) {
+            tracker.record(filmId);
+        }
+        for (int i = 0; i < 50; i++) {
+            tracker.record(1000L);
+        }
+
+        LikeBurst burst = tracker.recent(1, 100).getFirst();
+
+        assertEquals(1000L, burst.getFilms().getFirst().getFilmId());
+        assertEquals(LikeBurstTracker.MAX_HEAVY_HITTERS, burst.getFilms().size());
+    }
+
+    @Test
+    void recent_keepsSeparateBucketsAndDropsExpiredOnes() {
+        tracker.record(1L);
+        clock.advance(Duration.ofMinutes(1));
+        tracker.record(2L);
+        tracker.record(2L);
+
+        List<LikeBurst> bursts = tracker.recent(3, 5);
+        assertEquals(List.of(2L, 1L), bursts.stream().map(burst -> burst.getFilms().getFirst().getFilmId()).toList());
+
+        // Через три интервала слот первого интервала занят новым
+        clock.advance(Duration.ofMinutes(2));
+        tracker.record(3L);
+        assertEquals(List.of(3L, 2L), tracker.recent(3, 5).stream()
+                .map(burst -> burst.getFilms().getFirst().getFilmId()).toList());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PopularFilmsCacheTest {
+
+    private PopularityIndex popularityIndex;
+    private FilmCache filmCache;
+    private PopularFilmsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        popularityIndex = mock(PopularityIndex.class);
+        filmCache = mock(FilmCache.class);
+        cache = new PopularFilmsCache(popularityIndex, filmCache, 100, Duration.ofMinutes(10));
+
+        // Фильм 1 - 10 лайков, фильм 2 - 5, фильм 3 за пределами списка из двух
+        when(popularityIndex.top(2, null, null)).thenReturn(List.of(1L, 2L));
+        when(popularityIndex.matches(anyLong(), isNull(), isNull())).thenReturn(true);
+        when(popularityIndex.likes(1L)).thenReturn(10);
+        when(popularityIndex.likes(2L)).thenReturn(5);
+        when(filmCache.getById(1L)).thenReturn(Optional.of(film(1L)));
+        when(filmCache.getById(2L)).thenReturn(Optional.of(film(2L)));
+    }
+
+    @Test
+    void get_loadsOncePerKey() {
+        List<Film> first = cache.get(2, null, null);
+        List<Film> second = cache.get(2, null, null);
+
+        assertEquals(first, second);
+        assertEquals(List.of(1L, 2L), first.stream().map(Film::getId).toList());
+        verify(popularityIndex, times(1)).top(2, null, null);
+        verify(popularityIndex, times(1)).addListener(cache);
+    }
+
+    @Test
+    void get_readsFilmsFromFilmCacheEachTime() {
+        cache.get(2, null, null);
+        Film renamed = film(1L);
+        renamed.setName("Renamed");
+        when(filmCache.getById(1L)).thenReturn(Optional.of(renamed));
+
+        assertSame(renamed, cache.get(2, null, null).getFirst());
+        verify(popularityIndex, times(1)).top(2, null, null);
+    }
+
+    @Test
+    void likesChanged_keepsListWhenOrderCannotChange() {
+        cache.get(2, null, null);
+
+        // Фильм вне списка остался позади последнего, в том числе при равных лайках и большем ID
+        cache.likesChanged(3L, 5);
+        // Первый фильм набрал лайки, но остался на своем месте
+        cache.likesChanged(1L, 11);
+        cache.get(2, null, null);
+
+        verify(popularityIndex, times(1)).top(2, null, null);
+    }
+
+    @Test
+    void likesChanged_reloadsWhenFilmMoves() {
+        cache.get(2, null, null);
+
+        cache.likesChanged(3L, 6);
+        cache.get(2, null, null);
+        verify(popularityIndex, times(2)).top(2, null, null);
+
+        cache.likesChanged(2L, 11);
+        cache.get(2, null, null);
+        verify(popularityIndex, times(3)).top(2, null, null);
+
+        // Последний фильм полного списка мог уступить место фильму за его пределами
+        cache.likesChanged(2L, 4);
+        cache.get(2, null, null);
+        verify(popularityIndex, times(4)).top(2, null, null);
+    }
+
+    @Test
+    void likesChanged_ignoresListsWithOtherFilters() {
+        when(popularityIndex.top(2, 1, null)).thenReturn(List.of(1L, 2L));
+        when(popularityIndex.matches(3L, 1, null)).thenReturn(false);
+        cache.get(2, 1, null);
+
+        cache.likesChanged(3L, 100);
+        cache.get(2, 1, null);
+
+        verify(popularityIndex, times(1)).top(2, 1, null);
+    }
+
+    @Test
+    void likesChanged_duringLoad_dropsLoadedList() {
+        when(popularityIndex.top(2, null, null)).thenAnswer(invocation -> {
+            // Лайк приходит, пока загрузка уже прочитала рейтинг
+            cache.likesChanged(2L, 11);
+            return List.of(1L, 2L);
+        }).thenReturn(List.of(2L, 1L));
+
+        List<Film> films = cache.get(2, null, null);
+
+        assertEquals(List.of(2L, 1L), films.stream().map(Film::getId).toList());
+        verify(popularityIndex, times(2)).top(2, null, null);
+    }
+
+    @Test
+    void invalidateAll_reloadsEveryList() {
+        cache.get(2, null, null);
+
+        cache.invalidateAll();
+        cache.get(2, null, null);
+
+        verify(popularityIndex, times(2)).top(2, null, null);
+    }
+
+    private static Film film(Long id) {
+        Film film = new Film();
+        film.setId(id);
+        return film;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopularityIndexTest {
+
+    private PopularityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PopularityIndex();
+        index.load(film(1L, 2001, 5, 1L));
+        index.load(film(2L, 2001, 7, 2L));
+        index.load(film(3L, 2010, 7, 1L, 2L));
+        index.finishLoad();
+    }
+
+    @Test
+    void top_ordersByLikesThenIdForEveryFilterCombination() {
+        assertEquals(List.of(2L, 3L, 1L), index.top(10, null, null));
+        assertEquals(List.of(2L, 3L), index.top(2, null, null));
+        assertEquals(List.of(3L, 1L), index.top(10, 1, null));
+        assertEquals(List.of(2L, 1L), index.top(10, null, 2001));
+        assertEquals(List.of(3L), index.top(10, 2, 2010));
+        assertTrue(index.top(10, 3, null).isEmpty());
+    }
+
+    @Test
+    void adjustLikes_movesFilmWithinAllRankings() {
+        index.adjustLikes(1L, 3);
+
+        assertEquals(List.of(1L, 2L, 3L), index.top(10, null, null));
+        assertEquals(List.of(1L, 3L), index.top(10, 1, null));
+        assertEquals(List.of(1L), index.top(1, 1, 2001));
+    }
+
+    @Test
+    void put_keepsLikesAndMovesFilmBetweenGenresAndYears() {
+        Film updated = film(3L, 2001, 0, 1L);
+
+        index.put(updated);
+
+        assertEquals(List.of(2L, 3L, 1L), index.top(10, null, null));
+        assertEquals(List.of(3L, 1L), index.top(10, 1, 2001));
+        assertEquals(List.of(2L), index.top(10, 2, null));
+        assertTrue(index.top(10, null, 2010).isEmpty());
+    }
+
+    @Test
+    void remove_dropsFilmFromAllRankings() {
+        index.remove(2L);
+
+        assertEquals(List.of(3L, 1L), index.top(10, null, null));
+        assertEquals(List.of(3L), index.top(10, 2, null));
+    }
+
+    private static Film film(Long id, int year, int likes, Long... genreIds) {
+        Film film = new Film();
+        film.setId(id);
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setRate(likes);
+        film.setGenres(Arrays.stream(genreIds).map(genreId -> new Genre(genreId, null)).toList());
+        return film;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dao.EventDao;
+import ru.yandex.practicum.filmorate.dto.EventDto;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static ru.yandex.practicum.filmorate.util.ActionsId.*;
+
+class TrendingIndexTest {
+
+    private final Instant now = Instant.now();
+    private EventDao eventDao;
+    private PopularityIndex popularityIndex;
+    private TrendingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        eventDao = mock(EventDao.class);
+        doAnswer(invocation -> {
+            Consumer<EventDto> consumer = invocation.getArgument(1);
+            consumer.accept(like(1000L, 1L, ADD.getId(), Duration.ofDays(2)));
+            consumer.accept(like(1001L, 1L, ADD.getId(), Duration.ofDays(2)));
+            // Повторный лайк того же пользователя не учитывается
+            consumer.accept(like(1000L, 1L, ADD.getId(), Duration.ofHours(2)));
+            consumer.accept(like(1002L, 2L, ADD.getId(), Duration.ofHours(1)));
+            return null;
+        }).when(eventDao).forEachLikeEvent(any(), any());
+        popularityIndex = mock(PopularityIndex.class);
+        when(popularityIndex.matches(anyLong(), any(), any())).thenReturn(true);
+        index = new TrendingIndex(eventDao, popularityIndex);
+        index.afterSingletonsInstantiated();
+    }
+
+    @Test
+    void top_ranksByDecayedScoreOfWindow() {
+        // За сутки два лайка двухдневной давности весят вместе 0.5, свежий лайк - почти 1
+        assertEquals(List.of(2L, 1L), index.top(TrendingWindow.DAY, 10, null));
+        assertEquals(List.of(1L, 2L), index.top(TrendingWindow.WEEK, 10, null));
+        assertEquals(List.of(1L), index.top(TrendingWindow.WEEK, 1, null));
+    }
+
+    @Test
+    void afterSingletonsInstantiated_replaysOnlyTenHalfLivesOfLongestWindow() {
+        verify(eventDao).forEachLikeEvent(argThat(since -> !since.isBefore(now.minus(Duration.ofDays(70)))
+                && since.isBefore(now.minus(Duration.ofDays(69)))), any());
+    }
+
+    @Test
+    void record_unlikeDropsFilmFromRanking() {
+        index.record(2L, -1, now);
+
+        assertEquals(List.of(1L), index.top(TrendingWindow.DAY, 10, null));
+    }
+
+    @Test
+    void top_appliesGenreFilter() {
+        when(popularityIndex.matches(1L, 5, null)).thenReturn(false);
+
+        assertEquals(List.of(2L), index.top(TrendingWindow.WEEK, 10, 5));
+    }
+
+    private EventDto like(Long userId, Long filmId, Long operationId, Duration ago) {
+        return new EventDto(userId, filmId, LIKE.getId(), operationId, now.minus(ago));
+    }
+}
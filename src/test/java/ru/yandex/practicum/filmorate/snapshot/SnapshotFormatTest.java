@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFormatTest {
+
+    @Test
+    void writeAndRead_roundTripsFilmsAndSharesReferences() throws IOException {
+        Director director = new Director();
+        director.setId(7L);
+        director.setName("Director");
+        Film first = film(1L, "Прибытие поезда", null, LocalDate.of(1896, 1, 25), director);
+        Film second = film(300L, "Film", "Description", LocalDate.of(2020, 5, 1), director);
+        second.setRate(15);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(bytes, "epoch-1")) {
+            writer.write(first, 0);
+            writer.write(second, 42);
+        }
+
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals("epoch-1", reader.getEpoch());
+            SnapshotEntry firstEntry = reader.next();
+            SnapshotEntry secondEntry = reader.next();
+            assertNull(reader.next());
+
+            assertEquals(first, firstEntry.film());
+            assertEquals(0, firstEntry.version());
+            assertEquals(second, secondEntry.film());
+            assertEquals(42, secondEntry.version());
+            assertSame(firstEntry.film().getMpa(), secondEntry.film().getMpa());
+            assertSame(firstEntry.film().getGenres().getFirst(), secondEntry.film().getGenres().getFirst());
+        }
+    }
+
+    @Test
+    void read_rejectsForeignFile() {
+        byte[] garbage = "not a snapshot".getBytes();
+
+        assertThrows(IOException.class, () -> new SnapshotReader(new ByteArrayInputStream(garbage)));
+    }
+
+    private Film film(Long id, String name, String description, LocalDate releaseDate, Director director) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate(releaseDate);
+        film.setDuration(90);
+        film.setMpa(new Mpa(3L, "PG-13"));
+        film.setGenres(new ArrayList<>(List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма"))));
+        film.setDirectors(new ArrayList<>(List.of(director)));
+        return film;
+    }
+}
@@ -38,6 +38,9 @@ MERGE INTO likes (film_id, user_id) VALUES (100, 1000);
 MERGE INTO likes (film_id, user_id) VALUES (100, 1001);
 MERGE INTO likes (film_id, user_id) VALUES (200, 1000);
 
+-- Лайки вставлены напрямую, счетчики пересчитываем
+UPDATE films SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = films.id);
+
 MERGE INTO event_types (id, name) VALUES (1, 'LIKE');
 MERGE INTO event_types (id, name) VALUES (2, 'REVIEW');
 MERGE INTO event_types (id, name) VALUES (3, 'FRIEND');